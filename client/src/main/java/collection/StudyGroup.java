@@ -85,6 +85,36 @@ public class StudyGroup implements Comparable<StudyGroup>, Serializable {
         this.owner = owner;
     }
 
+    /**
+     * Constructs a StudyGroup with the specified ID and original creation timestamp,
+     * as received from the server. If the ID is non-null, it is tracked in the IDs map.
+     *
+     * @param id the unique identifier for the study group
+     * @param name the name of the study group
+     * @param coordinates the location coordinates
+     * @param creationDate the original creation timestamp
+     * @param studentCount the number of students
+     * @param formOfEducation the form of education
+     * @param semester the semester
+     * @param groupAdmin the administrator (Person) of the group
+     * @param owner the username of the creator/owner
+     */
+    public StudyGroup(Integer id, String name, Coordinates coordinates, LocalDateTime creationDate,
+                      Integer studentCount, FormOfEducation formOfEducation,
+                      Semester semester, Person groupAdmin, String owner) {
+        this.id = id;
+        if (id != null)
+            IDs.put(id, true);
+        this.name = name;
+        this.coordinates = coordinates;
+        this.creationDate = creationDate;
+        this.studentCount = studentCount;
+        this.formOfEducation = formOfEducation;
+        this.semester = semester;
+        this.groupAdmin = groupAdmin;
+        this.owner = owner;
+    }
+
     /**
      * Compares this StudyGroup to another based on their IDs.
      *
@@ -75,7 +75,52 @@ public enum Commands {
     /** Checks connection with the server via handshake message exchange
      * <p>Not available to regular users.</p>
      */
-    HANDSHAKE(null, Rules.S);
+    HANDSHAKE(null, Rules.S),
+
+    /** Carries several requests in one message; the server answers with per-item results
+     * <p>Not available to regular users.</p>
+     */
+    BATCH(null, Rules.S),
+
+    /** Starts or renews change notifications and returns the current collection version
+     * <p>Not available to regular users.</p>
+     */
+    SUBSCRIBE(null, Rules.S),
+
+    /** Returns the groups changed after a collection version, or a full snapshot
+     * <p>Not available to regular users.</p>
+     */
+    SHOW_SINCE(null, Rules.S),
+
+    /** Returns all groups as one encoded block instead of text
+     * <p>Not available to regular users.</p>
+     */
+    SHOW_BINARY(null, Rules.S),
+
+    /** Returns the groups after an id, one page at a time
+     * <p>Not available to regular users.</p>
+     */
+    SHOW_PAGE(null, Rules.S),
+
+    /** Returns the groups matching a filter that the server evaluates
+     * <p>Not available to regular users.</p>
+     */
+    QUERY(null, Rules.S),
+
+    /** Returns the ids of all groups the current user owns
+     * <p>Not available to regular users.</p>
+     */
+    OWNED_IDS(null, Rules.S),
+
+    /** Returns a single group by its ID
+     * <p>Not available to regular users.</p>
+     */
+    GET_BY_ID(null, Rules.S),
+
+    /** Reloads the server's collection from the database
+     * <p>Not available to regular users.</p>
+     */
+    RESYNC(null, Rules.S);
 
     private final Command command;
     private final Rules rules;
@@ -1,9 +1,7 @@
 package gui;
 
 import collection.StudyGroup;
-import commands.Commands;
 import exceptions.ServerDisconnect;
-import io.Server;
 import javafx.animation.ScaleTransition;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
@@ -23,7 +21,7 @@ import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.util.Duration;
-import storage.Request;
+import service.ClientService;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -161,7 +159,7 @@ public class GraphView extends Pane {
             double x = positions.get(i)[0];
             double y = positions.get(i)[1];
             StudyGroup group = groups.get(i);
-            boolean own = !Server.interaction(new Request<>(Commands.CHECK_IS_WITH_ID, group.getId())).contains("false");
+            boolean own = ClientService.isOwnGroup(group);
             Color fill = own ? Color.LIGHTGREEN : Color.LIGHTGRAY;
             Color stroke = own ? Color.GREEN.darker() : Color.GRAY.darker();
             double r = Math.min(10 + Math.log10(group.getStudentCount()) * 10, 60);
@@ -200,7 +198,7 @@ public class GraphView extends Pane {
             double x = centerX + radius * Math.cos(angle);
             double y = centerY + radius * Math.sin(angle);
             StudyGroup group = groups.get(i);
-            boolean own = !Server.interaction(new Request<>(Commands.CHECK_IS_WITH_ID, group.getId())).contains("false");
+            boolean own = ClientService.isOwnGroup(group);
             Color fill = own ? Color.LIGHTGREEN : Color.LIGHTGRAY;
             Color stroke = own ? Color.GREEN.darker() : Color.GRAY.darker();
             double r = Math.min(10 + Math.log10(group.getStudentCount()) * 10, 60);
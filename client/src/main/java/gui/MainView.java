@@ -1,6 +1,7 @@
 package gui;
 
 import collection.FormOfEducation;
+import collection.GroupFilter;
 import collection.Semester;
 import commands.Commands;
 import exceptions.ServerDisconnect;
@@ -10,6 +11,7 @@ import io.Server;
 import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.value.ChangeListener;
+import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.geometry.Side;
 import javafx.scene.Node;
@@ -31,20 +33,32 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 import javafx.animation.Timeline;
 import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
 import javafx.util.Duration;
 import service.Localization;
 import storage.Logging;
 import storage.Request;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import static service.ClientService.showAllGroupsParsed;
 
 public class MainView {
     private final Stage stage;
     private TableView<StudyGroup> tableView;
     private ObservableList<StudyGroup> dataList;
-    private Timeline autoRefreshTimeline;
+    private Timeline subscriptionTimeline;
+    private Consumer<String> changeListener;
+    private volatile String knownVersion = null;
+    private static final int PAGE_SIZE = 200;
+    private final List<StudyGroup> loadedGroups = new ArrayList<>();
+    private int pageCursor = 0;
+    private boolean morePages = true;
+    private boolean pageLoading = false;
+    private boolean refreshPending = false;
+    private boolean scrollListenerAttached = false;
+    /** Redraws the graph and the map once pages stop arriving, instead of after every page. */
+    private final PauseTransition viewRedraw = new PauseTransition(Duration.millis(300));
     private Dialog<Void> filterDialog;
     private TextField tfNameFilter, tfMinStudents, tfMaxStudents;
     private TextField tfMinX, tfMaxX, tfMinY, tfMaxY, tfAdminFilter;
@@ -84,6 +98,7 @@ public class MainView {
         tableView = new TableView<>();
         dataList = FXCollections.observableArrayList();
         tableView.setItems(dataList);
+        viewRedraw.setOnFinished(event -> redrawViews());
         tableView.setOnMouseClicked(event -> {
             if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
                 StudyGroup selectedGroup = tableView.getSelectionModel().getSelectedItem();
@@ -158,14 +173,10 @@ public class MainView {
                     setStyle("");
                     return;
                 }
-                try {
-                    if (!Server.interaction(new Request<>(Commands.CHECK_IS_WITH_ID, item.getId())).contains("false")) {
-                        setStyle("-fx-background-color: #e0e0e0;");
-                    } else {
-                        setStyle("");
-                    }
-                } catch (ServerDisconnect e) {
-                    throw new RuntimeException(e);
+                if (ClientService.isOwnGroup(item)) {
+                    setStyle("-fx-background-color: #e0e0e0;");
+                } else {
+                    setStyle("");
                 }
             }
         });
@@ -173,7 +184,7 @@ public class MainView {
         createColumns();
 
         tableTab = new Tab(bundle.getString("main.tab.table"), tableView);
-        List<StudyGroup> groups = showAllGroupsParsed();
+        List<StudyGroup> groups = new ArrayList<>();
         graphTab = new Tab(bundle.getString("main.tab.graph"), new GraphView(groups, this, tableTab, tableView));
         this.mapView = new MapView(dataList, tableTab, tableView);
         mapTab = new Tab(bundle.getString("main.tab.map"), this.mapView);
@@ -218,7 +229,7 @@ public class MainView {
         countBtn.setOnAction(e -> handleCount());
         execScriptBtn.setOnAction(e -> new ExecuteScriptDialog(this).show());
         exitBtn.setOnAction(e -> {
-            stopAutoRefresh();
+            stopSubscription();
             stage.close();
         });
         helpBtn.setOnAction(e -> handleHelp());
@@ -230,8 +241,9 @@ public class MainView {
         logoutItem.setOnAction(e -> {
             try {
                 Authentication.logout();
+                ClientService.forgetGroups();
                 Platform.runLater(() -> {
-                    stopAutoRefresh();
+                    stopSubscription();
                     stage.close();
                     new LoginView(new Stage()).show();
                 });
@@ -278,12 +290,23 @@ public class MainView {
         topBar.setAlignment(Pos.CENTER_RIGHT);
         root.setTop(topBar);
 
-        handleRefresh();
-        autoRefreshTimeline = new Timeline(
-                new KeyFrame(Duration.seconds(2), ev -> handleRefresh())
+        loadNextPage();
+        try {
+            changeListener = ClientService.listenForChanges(version -> {
+                if (!version.equals(knownVersion)) {
+                    knownVersion = version;
+                    Platform.runLater(this::handleRefresh);
+                }
+            });
+        } catch (Exception ex) {
+            Logging.log(Logging.makeMessage(ex.getMessage(), ex.getStackTrace()));
+        }
+        renewSubscription();
+        subscriptionTimeline = new Timeline(
+                new KeyFrame(Duration.seconds(30), ev -> renewSubscription())
         );
-        autoRefreshTimeline.setCycleCount(Timeline.INDEFINITE);
-        autoRefreshTimeline.play();
+        subscriptionTimeline.setCycleCount(Timeline.INDEFINITE);
+        subscriptionTimeline.play();
     }
 
     private String localizeLayoutMode(GraphView.LayoutMode mode) {
@@ -545,24 +568,31 @@ public class MainView {
         applyStoredFilter();
     }
 
+    private GroupFilter currentFilter() {
+        return new GroupFilter(nameFilter, minStudents, maxStudents, minX, maxX, minY, maxY,
+                selectedForms, selectedSems, adminFilter);
+    }
+
+    /**
+     * Shows the loaded groups, or, while a filter is set, asks the server for the groups that
+     * match it, so only the matches are transferred.
+     */
     private void applyStoredFilter() {
-        List<StudyGroup> filtered = dataList.stream().filter(g -> {
-            if (!nameFilter.isEmpty() && !g.getName().toLowerCase().contains(nameFilter)) return false;
-            int s = g.getStudentCount();
-            if (s < minStudents || s > maxStudents) return false;
-            Long x = g.getCoordinates().x();
-            if (x != null && (x < minX || x > maxX)) return false;
-            Float y = g.getCoordinates().y();
-            if (y != null && (y < minY || y > maxY)) return false;
-            if (!selectedForms.isEmpty() && (g.getFormOfEducation() == null || !selectedForms.contains(g.getFormOfEducation())))
-                return false;
-            if (!selectedSems.isEmpty() && (g.getSemester() == null || !selectedSems.contains(g.getSemester())))
-                return false;
-            if (!adminFilter.isEmpty() && (g.getGroupAdmin() == null || !g.getGroupAdmin().name().toLowerCase().contains(adminFilter)))
-                return false;
-            return true;
-        }).collect(Collectors.toList());
-        tableView.getItems().setAll(filtered);
+        GroupFilter filter = currentFilter();
+        if (filter.isEmpty()) {
+            showGroups(new ArrayList<>(loadedGroups));
+            return;
+        }
+        new Thread(() -> {
+            try {
+                List<StudyGroup> matches = ClientService.queryGroups(filter);
+                Platform.runLater(() -> {
+                    if (filter.equals(currentFilter())) showGroups(matches);
+                });
+            } catch (Exception ex) {
+                Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait());
+            }
+        }).start();
     }
 
     private void resetFilters() {
@@ -713,42 +743,202 @@ public class MainView {
         new Alert(Alert.AlertType.ERROR, message, ButtonType.OK).showAndWait();
     }
 
-    private void stopAutoRefresh() {
-        if (autoRefreshTimeline != null) {
-            autoRefreshTimeline.stop();
-        }
+    /**
+     * Renews the change subscription on the server; the server drops subscribers
+     * that stay silent longer than its lease. Refreshes the table if a change was missed.
+     */
+    private void renewSubscription() {
+        new Thread(() -> {
+            try {
+                String version = ClientService.subscribe();
+                if (!version.equals(knownVersion)) {
+                    knownVersion = version;
+                    Platform.runLater(this::handleRefresh);
+                }
+            } catch (Exception ex) {
+                Logging.log(Logging.makeMessage(ex.getMessage(), ex.getStackTrace()));
+                Platform.runLater(this::handleRefresh);
+            }
+        }).start();
     }
 
-    public void handleRefresh() {
-        List<TableColumn<StudyGroup, ?>> savedSortOrder = new ArrayList<>(tableView.getSortOrder());
-        boolean[] sortDirections = new boolean[savedSortOrder.size()];
-        for (int i = 0; i < savedSortOrder.size(); i++) {
-            sortDirections[i] = savedSortOrder.get(i).getSortType() == TableColumn.SortType.ASCENDING;
+    private void stopSubscription() {
+        if (subscriptionTimeline != null) {
+            subscriptionTimeline.stop();
         }
+        if (changeListener != null) {
+            try {
+                ClientService.stopListening(changeListener);
+            } catch (Exception ex) {
+                Logging.log(Logging.makeMessage(ex.getMessage(), ex.getStackTrace()));
+            }
+            changeListener = null;
+        }
+    }
 
+    /**
+     * Loads the next page of groups and appends it to the table. Keeps loading while the
+     * table has no scroll bar yet or is scrolled close to the end.
+     */
+    private void loadNextPage() {
+        if (pageLoading || !morePages || !currentFilter().isEmpty()) return;
+        pageLoading = true;
+        int afterId = pageCursor;
         new Thread(() -> {
             try {
-                List<StudyGroup> list = ClientService.fetchAllGroups();
+                ClientService.GroupPage page = ClientService.fetchPage(afterId, PAGE_SIZE);
                 Platform.runLater(() -> {
-                    dataList.setAll(list);
-                    applyStoredFilter();
-
-                    tableView.getSortOrder().setAll(savedSortOrder);
-                    for (int i = 0; i < savedSortOrder.size(); i++) {
-                        savedSortOrder.get(i).setSortType(sortDirections[i] ?
-                                TableColumn.SortType.ASCENDING : TableColumn.SortType.DESCENDING);
+                    if (afterId == 0) loadedGroups.clear();
+                    loadedGroups.addAll(page.groups());
+                    pageCursor = page.lastId();
+                    morePages = page.more();
+                    if (currentFilter().isEmpty()) {
+                        if (afterId == 0) dataList.clear();
+                        appendGroups(page.groups());
                     }
+                    finishLoading();
+                    attachScrollListener();
+                    if (nearBottom()) loadNextPage();
+                });
+            } catch (Exception ex) {
+                Platform.runLater(() -> {
+                    finishLoading();
+                    new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
+                });
+            }
+        }).start();
+    }
 
-                    if (graphTab.getContent() instanceof GraphView graph) {
-                        graph.refreshGraph(tableView.getItems(), this, tableTab, tableView);
-                    }
-                    if (mapTab.getContent() instanceof MapView mv) {
-                        mv.refreshMap(tableView.getItems());
+    private void finishLoading() {
+        pageLoading = false;
+        if (refreshPending) {
+            refreshPending = false;
+            handleRefresh();
+        }
+    }
+
+    /**
+     * Loads further pages as the table is scrolled towards the end. The scroll bar exists
+     * only once the table has been laid out, so this is retried after every page.
+     */
+    private void attachScrollListener() {
+        ScrollBar bar = verticalScrollBar();
+        if (scrollListenerAttached || bar == null) return;
+        bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+            if (nearBottom()) loadNextPage();
+        });
+        scrollListenerAttached = true;
+    }
+
+    private ScrollBar verticalScrollBar() {
+        for (Node node : tableView.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                return bar;
+            }
+        }
+        return null;
+    }
+
+    private boolean nearBottom() {
+        ScrollBar bar = verticalScrollBar();
+        return bar != null && (!bar.isVisible() || bar.getValue() >= bar.getMax() * 0.9);
+    }
+
+    /**
+     * Reloads the groups shown in the table. Until every page has been loaded only the
+     * pages already on screen are read again; afterwards only the changes are fetched.
+     */
+    public void handleRefresh() {
+        if (pageLoading) {
+            refreshPending = true;
+            return;
+        }
+        pageLoading = true;
+        boolean paged = morePages;
+        int loaded = loadedGroups.size();
+        new Thread(() -> {
+            try {
+                List<StudyGroup> list;
+                int cursor = 0;
+                boolean more = false;
+                if (paged) {
+                    list = new ArrayList<>();
+                    do {
+                        ClientService.GroupPage page = ClientService.fetchPage(cursor, PAGE_SIZE);
+                        list.addAll(page.groups());
+                        cursor = page.lastId();
+                        more = page.more();
+                    } while (more && list.size() < loaded);
+                } else {
+                    list = ClientService.fetchAllGroups();
+                }
+                int nextCursor = cursor;
+                boolean nextMore = more;
+                Platform.runLater(() -> {
+                    loadedGroups.clear();
+                    loadedGroups.addAll(list);
+                    if (paged) {
+                        pageCursor = nextCursor;
+                        morePages = nextMore;
                     }
+                    applyStoredFilter();
+                    finishLoading();
                 });
             } catch (Exception ex) {
-                Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait());
+                Platform.runLater(() -> {
+                    finishLoading();
+                    new Alert(Alert.AlertType.ERROR, ex.getMessage(), ButtonType.OK).showAndWait();
+                });
             }
         }).start();
     }
+
+    /**
+     * Puts groups into the table, keeping the sort order, and redraws the graph and the map.
+     */
+    private void showGroups(List<StudyGroup> list) {
+        List<TableColumn<StudyGroup, ?>> savedSortOrder = new ArrayList<>(tableView.getSortOrder());
+        boolean[] sortDirections = new boolean[savedSortOrder.size()];
+        for (int i = 0; i < savedSortOrder.size(); i++) {
+            sortDirections[i] = savedSortOrder.get(i).getSortType() == TableColumn.SortType.ASCENDING;
+        }
+
+        dataList.setAll(list);
+
+        tableView.getSortOrder().setAll(savedSortOrder);
+        for (int i = 0; i < savedSortOrder.size(); i++) {
+            savedSortOrder.get(i).setSortType(sortDirections[i] ?
+                    TableColumn.SortType.ASCENDING : TableColumn.SortType.DESCENDING);
+        }
+
+        viewRedraw.stop();
+        redrawViews();
+    }
+
+    /**
+     * Adds one page below the rows already in the table, re-sorting only if a sort order is
+     * set, so loading n rows page by page does not copy them all again for every page. The
+     * graph and the map are redrawn once pages stop arriving, or at once after the last page.
+     */
+    private void appendGroups(List<StudyGroup> page) {
+        dataList.addAll(page);
+        if (!tableView.getSortOrder().isEmpty()) {
+            tableView.sort();
+        }
+        if (morePages) {
+            viewRedraw.playFromStart();
+        } else {
+            viewRedraw.stop();
+            redrawViews();
+        }
+    }
+
+    private void redrawViews() {
+        if (graphTab.getContent() instanceof GraphView graph) {
+            graph.refreshGraph(tableView.getItems(), this, tableTab, tableView);
+        }
+        if (mapTab.getContent() instanceof MapView mv) {
+            mv.refreshMap(tableView.getItems());
+        }
+    }
 }
\ No newline at end of file
@@ -30,8 +30,6 @@ import storage.Request;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
 import java.util.ResourceBundle;
 
 import static exceptions.CheckObjWithId.checkObjWithId;
@@ -58,17 +56,13 @@ public class UpdateDialog {
                             bundle.getString("updatedialog.key.id"), Integer.class, true, true, false,
                             preFilledId.trim(), false, null, false
                     );
-                    List<StudyGroup> groups = ClientService.fetchAllGroups();
-                    Optional<StudyGroup> opt = groups.stream()
-                            .filter(g -> id.equals(g.getId()))
-                            .findFirst();
-                    if (opt.isEmpty()) {
+                    StudyGroup existing = ClientService.fetchGroup(id);
+                    if (existing == null) {
                         Platform.runLater(() -> new Alert(Alert.AlertType.ERROR,
                                 String.format(bundle.getString("updatedialog.error.notfound"), id),
                                 ButtonType.OK).showAndWait());
                         return;
                     }
-                    StudyGroup existing = opt.get();
                     Platform.runLater(() -> createDialog(id, existing));
                 } catch (Exception ex) {
                     Platform.runLater(() -> new Alert(Alert.AlertType.ERROR,
@@ -10,8 +10,12 @@ import commands.Exit;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
+import java.util.Set;
 
 /**
  * Processes user commands from console or file input and generates corresponding requests.
@@ -23,6 +27,14 @@ import java.util.Scanner;
 public class CommandsHandler {
 
     private static final Scanner scanner = new Scanner(System.in);
+    private static final String BATCH_ITEM_MARKER = "##B#";
+
+    /**
+     * Script commands that talk to the server while their arguments are parsed, so every
+     * request read before them has to reach the server first.
+     */
+    private static final Set<String> ORDERING_COMMANDS = Set.of(
+            Commands.UPDATE.name(), Commands.REMOVE_BY_ID.name(), Commands.EXECUTE_SCRIPT.name());
 
     /**
      * Checks whether the provided string corresponds to a valid {@link Commands} enum constant.
@@ -129,6 +141,8 @@ public class CommandsHandler {
      * Reads commands line-by-line from a file and executes each.
      * <p>
      * Lines are split on commas; each invocation of {@link #isCommand} may print or log errors.
+     * Consecutive requests are packed into {@link Commands#BATCH} messages of up to 64 KB,
+     * which the transport splits into datagrams, and the per-item results are printed in script order.
      * Stops processing on {@link ServerDisconnect}.
      * </p>
      *
@@ -146,20 +160,31 @@ public class CommandsHandler {
             }
 
             try (Scanner scanner = new Scanner(file)) {
+                List<Request<?>> pending = new ArrayList<>();
                 while (scanner.hasNextLine()) {
                     String line = scanner.nextLine();
                     String[] args = line.split(",");
                     try {
+                        if (ORDERING_COMMANDS.contains(args[0].trim().toUpperCase(Locale.ROOT))) {
+                            sendBatch(pending);
+                        }
                         Request<?> request = isCommand(args, "F");
-                        if (request != null) {
-                            DistributionOfTheOutputStream.printFromServer(
-                                    Server.interaction(request)
-                            );
+                        if (request == null) {
+                            continue;
+                        }
+                        pending.add(request);
+                        if (!Server.fitsInMessage(batchOf(pending))) {
+                            pending.remove(pending.size() - 1);
+                            sendBatch(pending);
+                            pending.add(request);
                         }
                     } catch (ServerDisconnect e) {
                         return;
                     }
                 }
+                sendBatch(pending);
+            } catch (ServerDisconnect e) {
+                return;
             } catch (FileNotFoundException fnf) {
                 Logging.log(Logging.makeMessage(fnf.getMessage(), fnf.getStackTrace()));
             }
@@ -168,4 +193,32 @@ public class CommandsHandler {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
         }
     }
+
+    private static Request<?> batchOf(List<Request<?>> items) {
+        return new Request<>(Commands.BATCH, new ArrayList<>(items));
+    }
+
+    /**
+     * Sends the pending script requests and prints each item's result in order.
+     * A single request is sent on its own; the list is cleared either way.
+     */
+    private static void sendBatch(List<Request<?>> pending) throws ServerDisconnect {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            if (pending.size() == 1) {
+                DistributionOfTheOutputStream.printFromServer(Server.interaction(pending.get(0)));
+                return;
+            }
+            String response = Server.interaction(batchOf(pending));
+            for (String item : response.split(BATCH_ITEM_MARKER + "\\d+\n")) {
+                if (!item.isEmpty()) {
+                    DistributionOfTheOutputStream.printFromServer(item);
+                }
+            }
+        } finally {
+            pending.clear();
+        }
+    }
 }
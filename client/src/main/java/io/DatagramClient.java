@@ -0,0 +1,275 @@
+package io;
+
+import storage.Logging;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+
+/**
+ * One long-lived UDP channel to the server shared by every request of the client.
+ * <p>
+ * Each request gets an id chosen here and travels as {@link BinaryCodec#TYPE_CHUNK} frames,
+ * which the server echoes in its response chunks. A single receiver thread routes incoming
+ * chunks to the request with that id and completes its future once the response is whole,
+ * so any number of threads can wait for their own answers at the same time.
+ * </p>
+ * <p>
+ * The receiver also keeps time: when an incomplete response stalls for {@link #NACK_INTERVAL}
+ * milliseconds it asks for the missing chunks, a request refused as busy is sent again after
+ * a growing pause, and a request without an answer after its deadline fails with a
+ * {@link TimeoutException}.
+ * </p>
+ */
+public class DatagramClient {
+
+    private static final long NACK_INTERVAL = 200;
+    private static final long TICK = 50;
+
+    private static DatagramClient instance;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final Map<Integer, Exchange> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final List<Consumer<String>> notificationListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * State of one request waiting for its response.
+     */
+    private static final class Exchange {
+        final int requestId;
+        final byte[] encoded;
+        final long deadline;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        byte[][] chunks;
+        int received;
+        byte flags;
+        long lastProgress = System.currentTimeMillis();
+        long busyBackoff = 50;
+        long retryAt;
+
+        Exchange(int requestId, byte[] encoded, long deadline) {
+            this.requestId = requestId;
+            this.encoded = encoded;
+            this.deadline = deadline;
+        }
+    }
+
+    private DatagramClient(String host, int port) throws IOException {
+        channel = DatagramChannel.open();
+        channel.connect(new InetSocketAddress(host, port));
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        Thread receiver = new Thread(this::receiveLoop, "server-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /**
+     * @return the shared client, connected on first use
+     * @throws IOException if the channel cannot be opened
+     */
+    public static synchronized DatagramClient getInstance(String host, int port) throws IOException {
+        if (instance == null) {
+            instance = new DatagramClient(host, port);
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a callback for change notifications pushed by the server.
+     *
+     * @param listener receives the notification text; runs on the receiver thread and must not block
+     */
+    public void addNotificationListener(Consumer<String> listener) {
+        notificationListeners.add(listener);
+    }
+
+    public void removeNotificationListener(Consumer<String> listener) {
+        notificationListeners.remove(listener);
+    }
+
+    /**
+     * Sends an encoded request.
+     *
+     * @param encoded   the request as produced by the codec or Java serialization
+     * @param timeoutMs how long to wait for the complete response
+     * @return a future completed with the response text, or exceptionally on timeout or I/O failure
+     */
+    public CompletableFuture<String> request(byte[] encoded, long timeoutMs) {
+        int requestId = nextId.incrementAndGet();
+        Exchange exchange = new Exchange(requestId, encoded, System.currentTimeMillis() + timeoutMs);
+        inFlight.put(requestId, exchange);
+        try {
+            send(exchange);
+        } catch (IOException e) {
+            fail(exchange, e);
+        }
+        return exchange.result;
+    }
+
+    private void send(Exchange exchange) throws IOException {
+        byte[] encoded = exchange.encoded;
+        long budget = exchange.deadline - System.currentTimeMillis();
+        if (budget <= 0) {
+            return;
+        }
+        int total = Math.max(1, (encoded.length + BinaryCodec.REQUEST_CHUNK_SIZE - 1) / BinaryCodec.REQUEST_CHUNK_SIZE);
+        for (int seq = 0; seq < total; seq++) {
+            int offset = seq * BinaryCodec.REQUEST_CHUNK_SIZE;
+            int length = Math.min(BinaryCodec.REQUEST_CHUNK_SIZE, encoded.length - offset);
+            channel.write(ByteBuffer.wrap(
+                    BinaryCodec.encodeRequestChunk(exchange.requestId, seq, total, (int) Math.min(budget, Integer.MAX_VALUE),
+                            encoded, offset, length)));
+        }
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(ResponseFrame.HEADER_SIZE + ResponseFrame.CHUNK_SIZE);
+        while (channel.isOpen()) {
+            try {
+                selector.select(TICK);
+                selector.selectedKeys().clear();
+                while (true) {
+                    buffer.clear();
+                    if (channel.read(buffer) <= 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    if (buffer.remaining() >= ResponseFrame.HEADER_SIZE) {
+                        onChunk(buffer);
+                    }
+                }
+                tick();
+            } catch (IOException e) {
+                Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            }
+        }
+    }
+
+    private void onChunk(ByteBuffer chunk) throws IOException {
+        int requestId = chunk.getInt();
+        int seq = chunk.getInt();
+        int total = chunk.getInt();
+        byte flags = chunk.get();
+        if ((flags & ResponseFrame.FLAG_NOTIFY) != 0) {
+            byte[] payload = new byte[chunk.remaining()];
+            chunk.get(payload);
+            String text = new String(payload, StandardCharsets.UTF_8);
+            for (Consumer<String> listener : notificationListeners) {
+                listener.accept(text);
+            }
+            return;
+        }
+        Exchange exchange = inFlight.get(requestId);
+        if (exchange == null) {
+            return;
+        }
+        if ((flags & ResponseFrame.FLAG_BUSY) != 0) {
+            if (exchange.chunks == null && exchange.retryAt == 0) {
+                exchange.retryAt = System.currentTimeMillis() + exchange.busyBackoff;
+                exchange.busyBackoff = Math.min(exchange.busyBackoff * 2, 1000);
+            }
+            return;
+        }
+        if (exchange.chunks == null) {
+            if (total <= 0) {
+                return;
+            }
+            exchange.chunks = new byte[total][];
+            exchange.flags = flags;
+        }
+        if (seq < 0 || seq >= exchange.chunks.length || exchange.chunks[seq] != null) {
+            return;
+        }
+        byte[] payload = new byte[chunk.remaining()];
+        chunk.get(payload);
+        exchange.chunks[seq] = payload;
+        exchange.received++;
+        exchange.lastProgress = System.currentTimeMillis();
+        if (exchange.received == exchange.chunks.length) {
+            complete(exchange);
+        }
+    }
+
+    private void complete(Exchange exchange) {
+        inFlight.remove(exchange.requestId);
+        int size = 0;
+        for (byte[] part : exchange.chunks) {
+            size += part.length;
+        }
+        byte[] all = new byte[size];
+        int offset = 0;
+        for (byte[] part : exchange.chunks) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        try {
+            if ((exchange.flags & ResponseFrame.FLAG_COMPRESSED) != 0) {
+                all = ResponseFrame.decompress(all);
+            }
+            exchange.result.complete(new String(all, StandardCharsets.UTF_8));
+        } catch (DataFormatException e) {
+            exchange.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Expires, retries and NACKs the requests in flight.
+     */
+    private void tick() {
+        long now = System.currentTimeMillis();
+        Iterator<Exchange> exchanges = inFlight.values().iterator();
+        while (exchanges.hasNext()) {
+            Exchange exchange = exchanges.next();
+            try {
+                if (now >= exchange.deadline) {
+                    exchanges.remove();
+                    exchange.result.completeExceptionally(
+                            new TimeoutException("Timeout waiting for all response chunks"));
+                } else if (exchange.retryAt != 0 && now >= exchange.retryAt) {
+                    exchange.retryAt = 0;
+                    send(exchange);
+                } else if (exchange.chunks != null && now - exchange.lastProgress > NACK_INTERVAL) {
+                    channel.write(ByteBuffer.wrap(BinaryCodec.encodeNack(exchange.requestId, missing(exchange))));
+                    exchange.lastProgress = now;
+                }
+            } catch (IOException e) {
+                exchanges.remove();
+                exchange.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void fail(Exchange exchange, Exception e) {
+        inFlight.remove(exchange.requestId);
+        exchange.result.completeExceptionally(e);
+    }
+
+    private static int[] missing(Exchange exchange) {
+        int[] missing = new int[exchange.chunks.length - exchange.received];
+        int index = 0;
+        for (int seq = 0; seq < exchange.chunks.length && index < missing.length; seq++) {
+            if (exchange.chunks[seq] == null) {
+                missing[index++] = seq;
+            }
+        }
+        return missing;
+    }
+}
@@ -7,10 +7,22 @@ import storage.Request;
 
 public class Handshake {
 
+    private static final String GREETING = "##C#Hi my little friend\n";
+    private static final String CODEC_PREFIX = "##C#codec ";
+
+    /**
+     * Checks the connection and offers the binary codec; the server answers with the
+     * greeting and, if it supports the codec, the version to use from now on.
+     */
     static public boolean makeHandshake() throws ServerDisconnect {
         try {
-            String ans = Server.interaction(new Request<>(Commands.HANDSHAKE, null, "-1", "-1"));
-            if (ans.equals("##C#Hi my little friend\n")) {
+            Server.setCodecVersion(0);
+            String ans = Server.interaction(new Request<>(Commands.HANDSHAKE, (int) BinaryCodec.VERSION, "-1", "-1"));
+            if (ans.startsWith(GREETING)) {
+                String rest = ans.substring(GREETING.length());
+                if (rest.startsWith(CODEC_PREFIX)) {
+                    Server.setCodecVersion(Integer.parseInt(rest.substring(CODEC_PREFIX.length()).trim()));
+                }
                 return true;
             }
         } catch (Exception e) {
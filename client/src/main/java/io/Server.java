@@ -1,91 +1,274 @@
 package io;
 
-import commands.Exit;
 import exceptions.ServerDisconnect;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.EOFException;
+import java.net.ConnectException;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
-import java.nio.channels.DatagramChannel;
-import java.nio.channels.Selector;
-import java.nio.channels.SelectionKey;
+import java.net.Socket;
+import java.net.SocketException;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
 
+import commands.Commands;
 import storage.Logging;
 import storage.Request;
 
 public class Server {
     private static final String SERVER_HOST = "127.0.0.1";
     private static final int SERVER_PORT = 6601;
+    private static final int TCP_PORT = 6602;
+    private static final int TIMEOUT = 5000;
+    /**
+     * {@code udp}, {@code tcp}, or {@code auto}: TCP for the commands in {@link #BULK_COMMANDS}
+     * and UDP for everything else. Set with {@code -Dclient.transport=...}.
+     */
+    private static final String TRANSPORT = System.getProperty("client.transport", "auto");
+    private static final Set<Commands> BULK_COMMANDS = Set.of(
+            Commands.SHOW, Commands.SHOW_SINCE, Commands.SHOW_BINARY, Commands.QUERY,
+            Commands.GROUP_COUNTING_BY_ID, Commands.BATCH);
+    /** Bulk commands that change nothing, so running them twice is harmless. */
+    private static final Set<Commands> READ_ONLY_COMMANDS = Set.of(
+            Commands.SHOW, Commands.SHOW_SINCE, Commands.SHOW_BINARY, Commands.QUERY,
+            Commands.GROUP_COUNTING_BY_ID);
+    private static final Object tcpLock = new Object();
+    private static Socket tcpSocket;
+    private static final int MAX_MESSAGE_SIZE = 64 * 1024;
+    private static volatile int codecVersion = 0;
 
+    /**
+     * Selects the request encoding agreed on during the handshake.
+     *
+     * @param version the binary codec version, or {@code 0} for Java serialization
+     */
+    public static void setCodecVersion(int version) {
+        codecVersion = version;
+    }
+
+    public static int getCodecVersion() {
+        return codecVersion;
+    }
+
+    /**
+     * Encodes a request with the negotiated codec, falling back to Java serialization
+     * before the handshake and for payloads the codec does not cover.
+     */
+    private static byte[] encode(Request<?> request) throws IOException {
+        if (codecVersion > 0 && BinaryCodec.supports(request.object())) {
+            return BinaryCodec.encodeRequest(request);
+        }
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (ObjectOutputStream oout = new ObjectOutputStream(bout)) {
+            oout.writeObject(request);
+        }
+        return bout.toByteArray();
+    }
+
+    /**
+     * Checks whether a request, encoded as it would be sent, stays within the size the client
+     * is willing to send as one message, possibly split over several datagrams.
+     *
+     * @param request the request to measure
+     * @return {@code true} if it can be sent
+     * @throws IOException if the request cannot be serialized
+     */
+    public static boolean fitsInMessage(Request<?> request) throws IOException {
+        return encode(request).length <= MAX_MESSAGE_SIZE;
+    }
+
+    /**
+     * Sends a request over the transport chosen by {@code client.transport}. In {@code auto}
+     * mode the request goes over UDP when the TCP listener cannot be reached.
+     *
+     * @param request the request to send
+     * @return the response text
+     * @throws ServerDisconnect if the server does not answer
+     */
     public static String interaction(Request<?> request) throws ServerDisconnect {
-        final int HEADER = 4 + 4 + 4;
-        final int CHUNK_SIZE = 1000;
-        Map<Integer, byte[]> chunks = new ConcurrentHashMap<>();
-        int expectedChunks = -1;
-        int requestId = Integer.MIN_VALUE;
-        long deadline = System.currentTimeMillis() + 5000;
-
-        try (DatagramChannel client = DatagramChannel.open()) {
-            client.connect(new InetSocketAddress(SERVER_HOST, SERVER_PORT));
-
-            ByteArrayOutputStream bout = new ByteArrayOutputStream();
-            try (ObjectOutputStream oout = new ObjectOutputStream(bout)) {
-                oout.writeObject(request);
+        boolean tcp = "tcp".equalsIgnoreCase(TRANSPORT)
+                || ("auto".equalsIgnoreCase(TRANSPORT) && BULK_COMMANDS.contains(request.command()));
+        if (tcp) {
+            try {
+                return tcpInteraction(request);
+            } catch (ConnectException e) {
+                if ("tcp".equalsIgnoreCase(TRANSPORT)) {
+                    throw new ServerDisconnect("IO error: " + e.getMessage());
+                }
+            } catch (IOException | DataFormatException e) {
+                closeTcp();
+                throw new ServerDisconnect("IO error: " + e.getMessage());
             }
-            client.write(ByteBuffer.wrap(bout.toByteArray()));
+        }
+        return udpInteraction(request);
+    }
 
-            while (System.currentTimeMillis() < deadline) {
-                ByteBuffer recv = ByteBuffer.allocate(HEADER + CHUNK_SIZE);
-                client.configureBlocking(false);
+    /**
+     * Thrown when a request could not be written, so the server cannot have run it.
+     */
+    private static final class RequestNotSentException extends IOException {
+        RequestNotSentException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
 
-                int read = client.read(recv);
-                if (read <= 0) {
-                    Thread.sleep(5);
-                    continue;
+    /**
+     * Exchanges one length-prefixed frame pair over the shared TCP connection. Requests are
+     * serialized on the connection, so responses always match the request just sent.
+     * A kept-alive connection the server has closed in the meantime is replaced once, but
+     * the request is sent again only if it was never written or only reads: a write whose
+     * response was lost may already have run.
+     */
+    private static String tcpInteraction(Request<?> request) throws IOException, DataFormatException {
+        byte[] encoded = encode(request);
+        boolean readOnly = READ_ONLY_COMMANDS.contains(request.command());
+        synchronized (tcpLock) {
+            boolean reused = tcpSocket != null;
+            try {
+                return exchange(connectTcp(), encoded);
+            } catch (RequestNotSentException e) {
+                closeTcp();
+                if (!reused) {
+                    throw (IOException) e.getCause();
+                }
+                return exchange(connectTcp(), encoded);
+            } catch (SocketException | EOFException e) {
+                closeTcp();
+                if (!reused || !readOnly) {
+                    throw e;
                 }
+                return exchange(connectTcp(), encoded);
+            }
+        }
+    }
 
-                recv.flip();
-                int rid    = recv.getInt();
-                int seq    = recv.getInt();
-                int total  = recv.getInt();
-                int payloadLen = recv.remaining();
+    /**
+     * @return the shared connection, opened on first use
+     * @throws ConnectException if the TCP listener cannot be reached
+     */
+    private static Socket connectTcp() throws ConnectException {
+        if (tcpSocket == null) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(SERVER_HOST, TCP_PORT), TIMEOUT);
+                socket.setSoTimeout(TIMEOUT);
+                socket.setTcpNoDelay(true);
+            } catch (IOException e) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+                throw new ConnectException(e.getMessage());
+            }
+            tcpSocket = socket;
+        }
+        return tcpSocket;
+    }
+
+    private static String exchange(Socket socket, byte[] encoded) throws IOException, DataFormatException {
+        long busyBackoff = 50;
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        while (true) {
+            try {
+                out.writeInt(encoded.length);
+                out.write(encoded);
+                out.flush();
+            } catch (SocketException e) {
+                throw new RequestNotSentException(e);
+            }
+
+            int length = in.readInt();
+            if (length <= 0) {
+                throw new IOException("Malformed response frame");
+            }
+            byte flags = in.readByte();
+            byte[] payload = new byte[length - 1];
+            in.readFully(payload);
 
-                if (requestId == Integer.MIN_VALUE) {
-                    requestId = rid;
-                    expectedChunks = total;
+            if ((flags & ResponseFrame.FLAG_BUSY) != 0) {
+                if (System.currentTimeMillis() + busyBackoff >= deadline) {
+                    throw new IOException("Server is busy");
                 }
-                if (rid != requestId) {
-                    continue;
+                try {
+                    Thread.sleep(busyBackoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the server");
                 }
+                busyBackoff = Math.min(busyBackoff * 2, 1000);
+                continue;
+            }
+            if ((flags & ResponseFrame.FLAG_COMPRESSED) != 0) {
+                payload = ResponseFrame.decompress(payload);
+            }
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
 
-                byte[] payload = new byte[payloadLen];
-                recv.get(payload);
-                chunks.put(seq, payload);
-
-                if (chunks.size() == expectedChunks) {
-                    byte[] all = new byte[(expectedChunks - 1) * CHUNK_SIZE +
-                            chunks.get(expectedChunks - 1).length];
-                    for (int i = 0; i < expectedChunks; i++) {
-                        byte[] part = chunks.get(i);
-                        System.arraycopy(part, 0, all, i * CHUNK_SIZE, part.length);
-                    }
-                    return new String(all, StandardCharsets.UTF_8);
+    private static void closeTcp() {
+        synchronized (tcpLock) {
+            if (tcpSocket != null) {
+                try {
+                    tcpSocket.close();
+                } catch (IOException e) {
+                    Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
                 }
+                tcpSocket = null;
             }
-            throw new ServerDisconnect("Timeout waiting for all response chunks");
+        }
+    }
+
+    /**
+     * Starts or renews change notifications. Always goes over UDP, because the server pushes
+     * notifications to the address the subscription came from.
+     *
+     * @return the server's answer, {@code "##C#version N"}
+     * @throws ServerDisconnect if the server does not answer
+     */
+    public static String subscribe() throws ServerDisconnect {
+        return udpInteraction(new Request<>(Commands.SUBSCRIBE, null));
+    }
+
+    /**
+     * Registers a callback for pushed change notifications.
+     *
+     * @param listener receives the notification text on the receiver thread
+     * @throws IOException if the datagram channel cannot be opened
+     */
+    public static void addNotificationListener(Consumer<String> listener) throws IOException {
+        DatagramClient.getInstance(SERVER_HOST, SERVER_PORT).addNotificationListener(listener);
+    }
+
+    public static void removeNotificationListener(Consumer<String> listener) throws IOException {
+        DatagramClient.getInstance(SERVER_HOST, SERVER_PORT).removeNotificationListener(listener);
+    }
+
+    /**
+     * Sends a request over the shared {@link DatagramClient} channel and waits for its response.
+     */
+    private static String udpInteraction(Request<?> request) throws ServerDisconnect {
+        try {
+            return DatagramClient.getInstance(SERVER_HOST, SERVER_PORT)
+                    .request(encode(request), TIMEOUT)
+                    .get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new ServerDisconnect("Interrupted while reading response");
+        } catch (ExecutionException e) {
+            throw new ServerDisconnect(e.getCause().getMessage());
         } catch (IOException e) {
             throw new ServerDisconnect("IO error: " + e.getMessage());
         }
     }
 
-
     public static String getServerHost() {
         return SERVER_HOST;
     }
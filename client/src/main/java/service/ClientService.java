@@ -3,20 +3,30 @@ package service;
 import collection.StudyGroup;
 import collection.Person;
 import collection.Coordinates;
+import collection.GroupFilter;
 import collection.FormOfEducation;
 import collection.Semester;
 import commands.Commands;
 import io.Authentication;
 import io.PrimitiveDataTransform;
 import io.EnumTransform;
+import io.BinaryCodec;
 import io.Server;
 import storage.Logging;
+import storage.PageRequest;
 import storage.Request;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,25 +35,193 @@ import java.util.regex.Pattern;
  */
 public class ClientService {
 
-    /** Retrieves all StudyGroup instances, parsed. */
-    public static List<StudyGroup> fetchAllGroups() throws Exception {
-        return showAllGroupsParsed();
+    /** Groups the client has seen, by id, as of {@link #knownVersion}. */
+    private static final Map<Integer, StudyGroup> knownGroups = new TreeMap<>();
+    /**
+     * Version token {@link #knownGroups} reflects, {@code <epoch>:<version>} as the server sent it,
+     * null before the first fetch. The epoch changes with every server start, so a token from an
+     * earlier run gets a full snapshot rather than a delta.
+     */
+    private static String knownVersion = null;
+    private static final Pattern DELTA_HEADER = Pattern.compile("version\\s+(\\S+)\\s+(snapshot|delta)");
+    private static final String GROUPS_PREFIX = "groups ";
+    private static final Pattern PAGE_HEADER = Pattern.compile("page\\s+(\\d+)\\s+(more|end)\\s+version\\s+(\\S+)");
+    /** Version token every page since the first one was read at, null once the pages disagree. */
+    private static String pagingVersion = null;
+
+    /**
+     * One page of groups in id order.
+     *
+     * @param groups the groups on the page
+     * @param lastId the cursor to pass as {@code afterId} for the next page
+     * @param more   {@code true} if another page follows
+     */
+    public record GroupPage(List<StudyGroup> groups, int lastId, boolean more) {}
+
+    /**
+     * Retrieves all StudyGroup instances, parsed. Only the groups that changed since the
+     * previous call are transferred; the server sends everything when it cannot tell.
+     */
+    public static synchronized List<StudyGroup> fetchAllGroups() throws Exception {
+        Request<String> req = new Request<>(Commands.SHOW_SINCE, knownVersion);
+        List<String> lines = contentLines(Server.interaction(req));
+        if (lines.isEmpty()) throw new IllegalArgumentException("Empty reply to " + Commands.SHOW_SINCE);
+
+        Matcher header = DELTA_HEADER.matcher(lines.get(0));
+        if (!header.find()) throw new IllegalArgumentException("Invalid delta header: " + lines.get(0));
+        if (header.group(2).equals("snapshot")) {
+            knownGroups.clear();
+        }
+        for (String entry : lines.subList(1, lines.size())) {
+            if (entry.startsWith("deleted ")) {
+                for (String id : entry.substring("deleted ".length()).split(",")) {
+                    knownGroups.remove(Integer.parseInt(id.trim()));
+                }
+            } else if (entry.startsWith(GROUPS_PREFIX)) {
+                for (StudyGroup g : decodeGroups(entry)) {
+                    knownGroups.put(g.getId(), g);
+                }
+            }
+        }
+        knownVersion = header.group(1);
+        return new ArrayList<>(knownGroups.values());
+    }
+
+    /**
+     * Retrieves the groups that follow an id, at most {@code limit} of them. Pages read from
+     * the first one to the last at the same collection version also seed the groups kept for
+     * {@link #fetchAllGroups()}, so the next refresh transfers only changes.
+     *
+     * @param afterId the cursor returned with the previous page, {@code 0} for the first one
+     * @param limit   the page size; the server may return fewer
+     */
+    public static synchronized GroupPage fetchPage(int afterId, int limit) throws Exception {
+        Request<PageRequest> req = new Request<>(Commands.SHOW_PAGE, new PageRequest(afterId, limit));
+        List<String> lines = contentLines(Server.interaction(req));
+        Matcher header = lines.isEmpty() ? null : PAGE_HEADER.matcher(lines.get(0));
+        if (header == null || !header.find()) throw new IllegalArgumentException("Invalid reply to " + Commands.SHOW_PAGE);
+
+        List<StudyGroup> groups = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.startsWith(GROUPS_PREFIX)) groups.addAll(decodeGroups(line));
+        }
+        boolean more = header.group(2).equals("more");
+        String version = header.group(3);
+
+        if (afterId == 0) {
+            knownGroups.clear();
+            knownVersion = null;
+            pagingVersion = version;
+        } else if (!version.equals(pagingVersion)) {
+            pagingVersion = null;
+        }
+        for (StudyGroup g : groups) {
+            knownGroups.put(g.getId(), g);
+        }
+        if (!more && pagingVersion != null) {
+            knownVersion = pagingVersion;
+        }
+        return new GroupPage(groups, Integer.parseInt(header.group(1)), more);
+    }
+
+    /**
+     * Retrieves all StudyGroup instances as one encoded block, decoded without any text
+     * parsing; every field, including the creation date and the owner, is as the server has it.
+     */
+    public static List<StudyGroup> showAllGroupsDecoded() throws Exception {
+        Request<Void> req = new Request<>(Commands.SHOW_BINARY, null);
+        for (String line : contentLines(Server.interaction(req))) {
+            if (line.startsWith(GROUPS_PREFIX)) {
+                return decodeGroups(line);
+            }
+        }
+        throw new IllegalArgumentException("No group block in reply to " + Commands.SHOW_BINARY);
+    }
+
+    /**
+     * Retrieves only the groups that match a filter; the server evaluates it, so the reply
+     * grows with the number of matches rather than with the collection.
+     */
+    public static List<StudyGroup> queryGroups(GroupFilter filter) throws Exception {
+        Request<GroupFilter> req = new Request<>(Commands.QUERY, filter);
+        for (String line : contentLines(Server.interaction(req))) {
+            if (line.startsWith(GROUPS_PREFIX)) {
+                return decodeGroups(line);
+            }
+        }
+        throw new IllegalArgumentException("No group block in reply to " + Commands.QUERY);
+    }
+
+    /**
+     * Retrieves a single group by its id in one small request.
+     *
+     * @return the group, or null if the server has no group with this id
+     */
+    public static StudyGroup fetchGroup(int id) throws Exception {
+        Request<Integer> req = new Request<>(Commands.GET_BY_ID, id);
+        for (String line : contentLines(Server.interaction(req))) {
+            if (line.startsWith(GROUPS_PREFIX)) {
+                List<StudyGroup> groups = decodeGroups(line);
+                return groups.isEmpty() ? null : groups.get(0);
+            }
+        }
+        throw new IllegalArgumentException("No group block in reply to " + Commands.GET_BY_ID);
+    }
+
+    /**
+     * Tells whether the current user owns a group, from the owner the server sent with it,
+     * so views can highlight their rows and nodes without asking the server.
+     */
+    public static boolean isOwnGroup(StudyGroup group) {
+        String username = Authentication.getInstance().getUsername();
+        return username != null && username.equals(group.getOwner());
+    }
+
+    /** Retrieves the ids of every group the current user owns, in one request. */
+    public static Set<Integer> fetchOwnedIds() throws Exception {
+        Request<Void> req = new Request<>(Commands.OWNED_IDS, null);
+        Set<Integer> ids = new TreeSet<>();
+        for (String line : contentLines(Server.interaction(req))) {
+            if (line.startsWith("owned")) {
+                for (String id : line.substring("owned".length()).trim().split(",")) {
+                    if (!id.isBlank()) ids.add(Integer.parseInt(id.trim()));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /** Decodes a {@code groups <base64>} line. */
+    private static List<StudyGroup> decodeGroups(String line) {
+        byte[] block = Base64.getDecoder().decode(line.substring(GROUPS_PREFIX.length()).trim());
+        return BinaryCodec.decodeGroups(ByteBuffer.wrap(block));
+    }
+
+    /** Drops the groups kept by {@link #fetchAllGroups()}, so the next call gets a full snapshot. */
+    public static synchronized void forgetGroups() {
+        knownGroups.clear();
+        knownVersion = null;
+        pagingVersion = null;
+    }
+
+    /** Keeps the "##C#" lines of a reply, without prefixes and trailing newlines. */
+    private static List<String> contentLines(String raw) {
+        List<String> result = new ArrayList<>();
+        for (String part : raw.split("##")) {
+            if (part.startsWith("C#")) {
+                String line = part.substring(2);
+                if (line.endsWith("\n")) line = line.substring(0, line.length() - 1);
+                result.add(line);
+            }
+        }
+        return result;
     }
 
     /** Gets raw lines from server and splits by StudyGroup entries. */
     public static List<String> showAllRawLines() throws Exception {
         try {
             Request<Void> req = new Request<>(Commands.SHOW, null);
-            String raw = Server.interaction(req);
-            List<String> result = new ArrayList<>();
-            for (String part : raw.split("##")) {
-                if (part.startsWith("C#")) {
-                    String line = part.substring(2);
-                    if (line.endsWith("\n")) line = line.substring(0, line.length() - 1);
-                    result.add(line);
-                }
-            }
-            return result;
+            return contentLines(Server.interaction(req));
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
             throw e;
@@ -119,17 +297,22 @@ public class ClientService {
         List<String> entries = showAllRawLines();
         List<StudyGroup> list = new ArrayList<>();
         for (String entry : entries) {
-            String[] split = entry.split("\n");
-            if (split.length < 3) {
-                Logging.log("Skipping malformed entry: expected 3 lines but got " + split.length + ". Entry: " + entry);
-                continue;
-            }
-            StudyGroup g = parseThreeLinesToGroup(split[0], split[1], split[2]);
+            StudyGroup g = parseEntry(entry);
             if (g != null) list.add(g);
         }
         return list;
     }
 
+    /** Parses one printed StudyGroup, or returns null if the entry is malformed. */
+    private static StudyGroup parseEntry(String entry) {
+        String[] split = entry.split("\n");
+        if (split.length < 3) {
+            Logging.log("Skipping malformed entry: expected 3 lines but got " + split.length + ". Entry: " + entry);
+            return null;
+        }
+        return parseThreeLinesToGroup(split[0], split[1], split[2]);
+    }
+
     public static String addGroup(StudyGroup group) throws Exception {
         Request<StudyGroup> req = new Request<>(Commands.ADD, group);
         return Server.interaction(req);
@@ -159,4 +342,34 @@ public class ClientService {
         Request<Person> req = new Request<>(Commands.COUNT_BY_GROUP_ADMIN, admin);
         return Server.interaction(req);
     }
+
+    /** Starts or renews change notifications and returns the server's collection version token. */
+    public static String subscribe() throws Exception {
+        Matcher m = Pattern.compile("version\\s+(\\S+)").matcher(Server.subscribe());
+        if (!m.find()) throw new IllegalArgumentException("No collection version in subscription reply");
+        return m.group(1);
+    }
+
+    /**
+     * Registers a callback that receives the new collection version token from every pushed
+     * change notification. Runs on the network receiver thread.
+     *
+     * @return the registered listener, to be passed to {@link #stopListening(Consumer)}
+     */
+    public static Consumer<String> listenForChanges(Consumer<String> onChange) throws Exception {
+        Consumer<String> listener = text -> {
+            String version = text.split(" ", 2)[0].trim();
+            if (version.isEmpty()) {
+                Logging.log("Malformed change notification: " + text);
+                return;
+            }
+            onChange.accept(version);
+        };
+        Server.addNotificationListener(listener);
+        return listener;
+    }
+
+    public static void stopListening(Consumer<String> listener) throws Exception {
+        Server.removeNotificationListener(listener);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package storage;
+
+import java.io.Serializable;
+
+/**
+ * Argument of {@code SHOW_PAGE}: the groups with ids greater than {@code afterId}, at most {@code limit} of them.
+ *
+ * @param afterId the last id the client already has, {@code 0} for the first page
+ * @param limit   the page size
+ */
+public record PageRequest(int afterId, int limit) implements Serializable {
+}
@@ -1,19 +1,19 @@
 import collection.Collection;
 import commands.*;
-import io.ClientRequest;
-import io.CommandsHandler;
-import io.DistributionOfTheOutputStream;
-import io.PreparingOfOutputStream;
+import io.ChangeNotifier;
+import io.DatagramReactor;
+import io.RequestPipeline;
+import io.TcpReactor;
 import storage.*;
 
 import java.io.IOException;
 import java.net.*;
-import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ServerApp {
 
@@ -24,55 +24,73 @@ public class ServerApp {
         listenLoop();
     }
 
+    /**
+     * Binds {@code server.channels} channels to the server port, each with its own reactor
+     * thread, and feeds them all into one request pipeline. More than one channel needs
+     * {@code SO_REUSEPORT}, which lets the kernel spread clients across the sockets.
+     * When {@code server.tcpPort} is set, a TCP listener for bulk transfers feeds the same pipeline.
+     */
     private static void listenLoop() {
-        try (DatagramChannel server = DatagramChannel.open()) {
-            server.configureBlocking(false);
-            server.bind(new InetSocketAddress(Server.getServerPort()));
-            System.out.println("Server waiting on port " + Server.getServerPort());
-
-            ExecutorService connectionPool = Executors.newFixedThreadPool(Server.getTreadsQuantity());
-            ByteBuffer buffer = ByteBuffer.allocate(4096);
-
-            while (true) {
-                ClientRequest req = Server.readFromClient(server, buffer);
-                if (req == null) {
-                    Thread.sleep(3);
-                    continue;
-                }
-
-                connectionPool.submit(() -> {
-                    try {
-                        Request<?> request = (Request<?>) req.input.readObject();
-
-                        new Thread(() -> {
-                            PreparingOfOutputStream.clear();
-                            CommandsHandler.execute(request, false);
-
-                            new Thread(() -> {
-                                try {
-                                    Server.sendResponse(server, req.address);
-                                } catch (IOException e) {
-                                    Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-                                }
-                            }).start();
-
-                        }).start();
-
-                    } catch (Exception e) {
-                        Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        List<DatagramChannel> channels = new ArrayList<>();
+        try {
+            int count = Server.getChannels();
+            for (int i = 0; i < count; i++) {
+                DatagramChannel channel = DatagramChannel.open();
+                channels.add(channel);
+                if (count > 1) {
+                    if (!channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                        System.out.println("SO_REUSEPORT is not supported here, using one channel");
+                        count = 1;
+                    } else {
+                        channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
                     }
-                });
+                }
+                channel.bind(new InetSocketAddress(Server.getServerPort()));
+            }
+            System.out.println("Server waiting on port " + Server.getServerPort()
+                    + " with " + channels.size() + " channel(s)");
+
+            RequestPipeline pipeline = new RequestPipeline(Server.createExecutor(), Server.getMaxInFlight());
+            List<Thread> loops = new ArrayList<>();
+            for (int i = 0; i < channels.size(); i++) {
+                DatagramReactor reactor = new DatagramReactor(channels.get(i), pipeline::submit,
+                        ServerMetrics.channelCounter());
+                Thread loop = new Thread(reactor, "udp-reactor-" + i);
+                loops.add(loop);
+                loop.start();
+            }
+            if (Server.getTcpPort() > 0) {
+                ServerSocketChannel tcp = ServerSocketChannel.open();
+                tcp.bind(new InetSocketAddress(Server.getTcpPort()));
+                Thread loop = new Thread(new TcpReactor(tcp, pipeline::submit), "tcp-reactor");
+                loop.setDaemon(true);
+                loop.start();
+                System.out.println("TCP listener on port " + Server.getTcpPort());
             }
+            System.out.println("Executor: " + Server.getExecutorMode());
+            ServerMetrics.startReporting();
+            for (Thread loop : loops) {
+                loop.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
         } finally {
+            for (DatagramChannel channel : channels) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+                }
+            }
             System.out.println("Server closed");
         }
     }
 
 
     private static void initializeApplication() {
-        Collection.getInstance();
+        Collection.getInstance().addChangeListener(ChangeNotifier::publish);
         Help help = Help.getInstance();
         Logging.initialize();
 
@@ -88,7 +106,7 @@ public class ServerApp {
         try {
             FillCollectionFromFile.fillCollectionFromFile();
         } catch (Exception e) {
-            DistributionOfTheOutputStream.println("Error loading collection from file: " + e.getMessage());
+            System.out.println("Error loading collection from file: " + e.getMessage());
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
         }
     }
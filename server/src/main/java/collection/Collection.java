@@ -8,20 +8,90 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 /**
  * Singleton class managing a collection of study groups.
  * This class ensures that only one instance of the collection exists
  * and provides methods to manipulate, retrieve, and save the collection.
+ * <p>
+ * The groups are kept in a concurrent map ordered by id, so readers never lock: they see
+ * every group either before or after a change, never half written. Writers are serialized
+ * on the instance monitor, apply their change to the map first and bump the version last,
+ * so a reader that reads the version before the groups never sees a version newer than
+ * the groups it reads.
+ * </p>
  */
 public class Collection {
 
-    private TreeSet<StudyGroup> collection = new TreeSet<>();
+    private final ConcurrentSkipListMap<Integer, StudyGroup> groups = new ConcurrentSkipListMap<>();
+    private final Map<Person, Set<Integer>> idsByAdmin = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> idsByOwner = new ConcurrentHashMap<>();
     private final LocalDateTime date;
-    private static Collection instance;
+    private final String epoch = Long.toHexString(new SecureRandom().nextLong());
+    private volatile long version;
+    private volatile Snapshot snapshot;
+    private volatile long modifications;
+    private final Deque<ChangeLogEntry> changeLog = new ArrayDeque<>();
+    private final List<BiConsumer<Long, Set<Integer>>> changeListeners = new CopyOnWriteArrayList<>();
+    private static final Collection instance = new Collection();
+
+    /**
+     * How many times a reader copies the map outside the monitor before it copies under it.
+     */
+    private static final int SNAPSHOT_ATTEMPTS = 3;
+
+    /**
+     * The ids that one version changed.
+     */
+    private record ChangeLogEntry(long version, Set<Integer> ids) {}
+
+    /**
+     * Groups that changed after some version.
+     *
+     * @param version  the version the result brings the caller to
+     * @param snapshot {@code true} if {@code upserts} is the whole collection and the caller
+     *                 must drop everything it had, {@code false} if it is a delta
+     * @param upserts  groups that were added or changed, in collection order
+     * @param deleted  ids of groups that were removed; empty for a snapshot
+     */
+    public record Changes(long version, boolean snapshot, List<StudyGroup> upserts, Set<Integer> deleted) {}
+
+    /**
+     * The whole collection as it was at one version. The list is immutable, so a snapshot can
+     * be shared by any number of threads and read for as long as needed.
+     *
+     * @param version the version the groups belong to
+     * @param groups  the groups in id order
+     */
+    public record Snapshot(long version, List<StudyGroup> groups) {}
+
+    /**
+     * One page of the collection in id order.
+     *
+     * @param version the version the page was read at
+     * @param groups  the groups on the page
+     * @param more    {@code true} if groups with greater ids follow
+     */
+    public record Page(long version, List<StudyGroup> groups, boolean more) {}
 
     /**
      * Private constructor to initialize the collection and set the creation date.
@@ -32,14 +102,10 @@ public class Collection {
 
     /**
      * Returns the singleton instance of the collection.
-     * If the instance does not exist, it is created.
      *
      * @return the singleton instance of the collection
      */
     public static Collection getInstance() {
-        if (instance == null) {
-            instance = new Collection();
-        }
         return instance;
     }
 
@@ -50,14 +116,17 @@ public class Collection {
      */
     public String getInfo() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
-        return "TreeSet " + date.format(formatter) + " " + collection.size();
+        return "TreeSet " + date.format(formatter) + " " + groups.size();
     }
 
     /**
      * Clears all elements from the collection.
      */
-    public void clearCollection() {
-        collection.clear();
+    public synchronized void clearCollection() {
+        groups.clear();
+        idsByAdmin.clear();
+        idsByOwner.clear();
+        modified();
     }
 
     /**
@@ -65,17 +134,21 @@ public class Collection {
      *
      * @param studyGroup the study group to remove from the collection
      */
-    public void removeElement(StudyGroup studyGroup) {
-        collection.remove(studyGroup);
+    public synchronized void removeElement(StudyGroup studyGroup) {
+        if (removeGroup(studyGroup.getId())) {
+            modified();
+        }
     }
 
     /**
-     * Returns the collection of study groups.
+     * Returns a read-only live view of the study groups in id order. Iterating it needs no
+     * lock and never throws {@link java.util.ConcurrentModificationException}; it reflects
+     * some of the changes made while it runs.
      *
      * @return the collection of study groups
      */
-    public TreeSet<StudyGroup> getCollection() {
-        return collection;
+    public java.util.Collection<StudyGroup> getCollection() {
+        return Collections.unmodifiableCollection(groups.values());
     }
 
     /**
@@ -83,13 +156,414 @@ public class Collection {
      *
      * @param studyGroup the study group to add
      */
-    public void addElement(StudyGroup studyGroup) {
-        collection.add(studyGroup);
+    public synchronized void addElement(StudyGroup studyGroup) {
+        if (!groups.containsKey(studyGroup.getId())) {
+            putGroup(studyGroup);
+            modified();
+        }
+    }
+
+    /**
+     * Returns the collection as of the latest version. The snapshot is built once per version,
+     * by the first reader that asks after a change, and then shared; readers iterate it without
+     * locking. The groups are copied from the map outside the monitor, and the copy is only
+     * published if no writer changed the map meanwhile, otherwise it is taken again; only a
+     * reader that keeps losing that race copies under the monitor, so writers wait for a copy
+     * only then.
+     *
+     * @return the current snapshot
+     */
+    public Snapshot snapshot() {
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            Snapshot current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            long seen = modifications;
+            long seenVersion = version;
+            List<StudyGroup> copy = List.copyOf(groups.values());
+            synchronized (this) {
+                if (modifications == seen) {
+                    if (snapshot == null) {
+                        snapshot = new Snapshot(seenVersion, copy);
+                    }
+                    return snapshot;
+                }
+            }
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = new Snapshot(version, List.copyOf(groups.values()));
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Looks a study group up by its id without scanning the collection.
+     *
+     * @param id the id of the group
+     * @return the group, or {@code null} if there is none with this id
+     */
+    public StudyGroup getById(int id) {
+        return groups.get(id);
+    }
+
+    /**
+     * Returns the ids of the groups whose admin is the given person, from an index kept up to
+     * date by every change. Birthdays are compared by date, as they are stored.
+     *
+     * @param admin the group admin to look for
+     * @return a read-only view of the ids, empty if the person administers no group
+     */
+    public Set<Integer> idsByAdmin(Person admin) {
+        if (admin == null) {
+            return Set.of();
+        }
+        Set<Integer> ids = idsByAdmin.get(adminKey(admin));
+        return ids == null ? Set.of() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Returns the ids of the groups the given user owns, from an index kept up to date by
+     * every change.
+     *
+     * @param owner the username
+     * @return a read-only view of the ids, empty if the user owns no group
+     */
+    public Set<Integer> idsByOwner(String owner) {
+        if (owner == null) {
+            return Set.of();
+        }
+        Set<Integer> ids = idsByOwner.get(owner);
+        return ids == null ? Set.of() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Tells whether a group exists and belongs to the given user, with one lookup.
+     *
+     * @param id    the id of the group
+     * @param owner the username
+     * @return {@code true} if the user owns the group with this id
+     */
+    public boolean isOwnedBy(int id, String owner) {
+        StudyGroup studyGroup = groups.get(id);
+        return studyGroup != null && Objects.equals(studyGroup.getOwner(), owner);
+    }
+
+    /**
+     * Returns the version of the collection, which grows by one with every change.
+     *
+     * @return the current version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Turns a version into the token clients see, {@code <epoch>:<version>}. Versions start
+     * again at 0 whenever the server starts, so the token carries a random epoch that tells
+     * one run of the server from another.
+     *
+     * @param version a version of this run
+     * @return the version token
+     */
+    public String token(long version) {
+        return epoch + ":" + version;
+    }
+
+    /**
+     * Reads a version token back. A token from another run of the server, or one that is not
+     * a token at all, yields {@code -1}, which {@link #changesSince(long)} answers with a
+     * snapshot.
+     *
+     * @param token the token a client holds, or {@code null} for none
+     * @return the version of this run the token names, or {@code -1}
+     */
+    public long versionOf(String token) {
+        if (token == null || !token.startsWith(epoch + ":")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(token.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Registers a callback that receives the new version and the ids of the groups that were
+     * added, changed or removed whenever a reload changes the collection.
+     *
+     * @param listener the callback, invoked on the thread that reloaded
+     */
+    public void addChangeListener(BiConsumer<Long, Set<Integer>> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Puts a group that was just written to the database into the collection, replacing the
+     * group with the same id if there is one, and records the change.
+     *
+     * @param studyGroup the group as the database returned it
+     */
+    public void upsert(StudyGroup studyGroup) {
+        Set<Integer> changed = Set.of(studyGroup.getId());
+        long newVersion;
+        synchronized (this) {
+            putGroup(studyGroup);
+            newVersion = recordChange(changed);
+        }
+        notifyListeners(newVersion, changed);
+    }
+
+    /**
+     * Removes groups that were just deleted from the database and records the change.
+     *
+     * @param ids the ids of the deleted rows
+     */
+    public void removeIds(List<Integer> ids) {
+        Set<Integer> changed = new LinkedHashSet<>();
+        long newVersion;
+        synchronized (this) {
+            for (Integer id : ids) {
+                if (removeGroup(id)) {
+                    changed.add(id);
+                }
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            newVersion = recordChange(changed);
+        }
+        notifyListeners(newVersion, changed);
     }
 
+    /**
+     * Reloads the collection from the database and, if anything changed, bumps the version
+     * and notifies the change listeners. Commands keep the collection current on their own,
+     * so this is only needed at startup and to resynchronize explicitly. Only the groups
+     * that differ are replaced, so readers running meanwhile may see some of them already
+     * reloaded and some not yet.
+     */
     public void reload() {
-        clearCollection();
-        DBManager.requestStudyGroup("SELECT * FROM STUDY_GROUP");
+        List<StudyGroup> loaded = DBManager.selectStudyGroups("SELECT * FROM STUDY_GROUP");
+        if (loaded == null) {
+            return;
+        }
+        long newVersion;
+        Set<Integer> changed = new LinkedHashSet<>();
+        synchronized (this) {
+            Set<Integer> stale = new HashSet<>(groups.keySet());
+            for (StudyGroup studyGroup : loaded) {
+                stale.remove(studyGroup.getId());
+                StudyGroup old = groups.get(studyGroup.getId());
+                if (old == null || !sameFields(old, studyGroup)) {
+                    putGroup(studyGroup);
+                    changed.add(studyGroup.getId());
+                }
+            }
+            for (Integer id : stale) {
+                removeGroup(id);
+                changed.add(id);
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            newVersion = recordChange(changed);
+        }
+        notifyListeners(newVersion, changed);
+    }
+
+    /**
+     * Stores a group, replacing the one with the same id, and updates the indexes.
+     * Callers hold the lock.
+     */
+    private void putGroup(StudyGroup studyGroup) {
+        StudyGroup old = groups.put(studyGroup.getId(), studyGroup);
+        if (old != null) {
+            unindex(old);
+        }
+        Person admin = studyGroup.getGroupAdmin();
+        index(idsByAdmin, admin == null ? null : adminKey(admin), studyGroup.getId());
+        index(idsByOwner, studyGroup.getOwner(), studyGroup.getId());
+    }
+
+    /**
+     * Removes a group by id and updates the indexes. Callers hold the lock.
+     *
+     * @return {@code true} if there was a group with this id
+     */
+    private boolean removeGroup(Integer id) {
+        StudyGroup old = groups.remove(id);
+        if (old == null) {
+            return false;
+        }
+        unindex(old);
+        return true;
+    }
+
+    /**
+     * Drops a group from the indexes.
+     */
+    private void unindex(StudyGroup studyGroup) {
+        Person admin = studyGroup.getGroupAdmin();
+        unindex(idsByAdmin, admin == null ? null : adminKey(admin), studyGroup.getId());
+        unindex(idsByOwner, studyGroup.getOwner(), studyGroup.getId());
+    }
+
+    /**
+     * Adds an id under a key of an index; a {@code null} key is not indexed.
+     */
+    private static <K> void index(Map<K, Set<Integer>> index, K key, Integer id) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * Removes an id from under a key of an index, and the key with it once no id is left.
+     */
+    private static <K> void unindex(Map<K, Set<Integer>> index, K key, Integer id) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Returns the admin as the database stores it, with the birthday cut to the date.
+     */
+    private static Person adminKey(Person admin) {
+        if (admin.birthday() == null) {
+            return admin;
+        }
+        return new Person(admin.name(), admin.birthday().toLocalDate().atStartOfDay(),
+                admin.height(), admin.passportID());
+    }
+
+    /**
+     * Bumps the version, drops the snapshot and logs the ids it changed. Callers hold the lock
+     * and have already applied the change to the map.
+     */
+    private long recordChange(Set<Integer> changed) {
+        long newVersion = ++version;
+        modified();
+        changeLog.addLast(new ChangeLogEntry(newVersion, changed));
+        while (changeLog.size() > Server.getChangeLogSize()) {
+            changeLog.removeFirst();
+        }
+        return newVersion;
+    }
+
+    /**
+     * Drops the snapshot and marks the map as changed, so that a snapshot copied while the
+     * change was being made is not published. Callers hold the lock and call it after the
+     * map and the version were updated.
+     */
+    private void modified() {
+        snapshot = null;
+        modifications++;
+    }
+
+    /**
+     * Tells the change listeners about a new version; called without holding the lock.
+     */
+    private void notifyListeners(long newVersion, Set<Integer> changed) {
+        for (BiConsumer<Long, Set<Integer>> listener : changeListeners) {
+            listener.accept(newVersion, changed);
+        }
+    }
+
+    /**
+     * Collects the groups that changed after the given version. When the change log no longer
+     * reaches back that far, or the version is unknown to this server, the whole collection
+     * is returned as a snapshot instead.
+     *
+     * @param since the version the caller already has, negative for none
+     * @return the upserts and deletions, or a snapshot, together with the current version
+     */
+    public synchronized Changes changesSince(long since) {
+        ChangeLogEntry oldest = changeLog.peekFirst();
+        boolean covered = since == version
+                || (since >= 0 && since < version && oldest != null && oldest.version() <= since + 1);
+        if (!covered) {
+            Snapshot current = snapshot();
+            return new Changes(current.version(), true, current.groups(), Set.of());
+        }
+        Set<Integer> ids = new TreeSet<>();
+        for (ChangeLogEntry entry : changeLog) {
+            if (entry.version() > since) {
+                ids.addAll(entry.ids());
+            }
+        }
+        List<StudyGroup> upserts = new ArrayList<>();
+        Set<Integer> deleted = new TreeSet<>();
+        for (Integer id : ids) {
+            StudyGroup studyGroup = groups.get(id);
+            if (studyGroup != null) {
+                upserts.add(studyGroup);
+            } else {
+                deleted.add(id);
+            }
+        }
+        return new Changes(version, false, upserts, deleted);
+    }
+
+    /**
+     * Returns the groups that follow an id. The map is ordered by id, so the page is found
+     * with {@code tailMap} and costs the same wherever it starts. The version is read
+     * before the groups, so the page is never older than the version it reports.
+     *
+     * @param afterId the last id already seen, {@code 0} for the first page
+     * @param limit   the maximum number of groups to return
+     * @return the page and whether another one follows
+     */
+    public Page page(int afterId, int limit) {
+        long pageVersion = version;
+        List<StudyGroup> selected = new ArrayList<>(Math.min(limit, groups.size()));
+        boolean more = false;
+        for (StudyGroup studyGroup : groups.tailMap(afterId, false).values()) {
+            if (selected.size() == limit) {
+                more = true;
+                break;
+            }
+            selected.add(studyGroup);
+        }
+        return new Page(pageVersion, selected, more);
+    }
+
+    /**
+     * Returns the groups that satisfy a condition, in collection order.
+     *
+     * @param condition the condition to test every group against
+     * @return the matching groups
+     */
+    public List<StudyGroup> select(Predicate<StudyGroup> condition) {
+        List<StudyGroup> selected = new ArrayList<>();
+        for (StudyGroup studyGroup : groups.values()) {
+            if (condition.test(studyGroup)) {
+                selected.add(studyGroup);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Compares the stored fields of two groups.
+     */
+    private static boolean sameFields(StudyGroup a, StudyGroup b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getCreationDate(), b.getCreationDate())
+                && Objects.equals(a.getCoordinates(), b.getCoordinates())
+                && Objects.equals(a.getStudentCount(), b.getStudentCount())
+                && a.getFormOfEducation() == b.getFormOfEducation()
+                && a.getSemester() == b.getSemester()
+                && Objects.equals(a.getGroupAdmin(), b.getGroupAdmin())
+                && Objects.equals(a.getOwner(), b.getOwner());
     }
 
     /**
@@ -97,8 +571,7 @@ public class Collection {
      * If the file exists, it is overwritten.
      */
     public static void output() {
-        TreeSet<StudyGroup> collection = Collection.getInstance().getCollection();
-        for (StudyGroup studyGroup : collection) {
+        for (StudyGroup studyGroup : Collection.getInstance().getCollection()) {
             DBManager.insertStudyGroup(studyGroup);
         }
     }
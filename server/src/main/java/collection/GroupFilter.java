@@ -0,0 +1,69 @@
+package collection;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Description of the study groups a client wants to see, evaluated by the server for {@code QUERY}.
+ * Empty strings, infinite bounds and empty lists leave the corresponding field unrestricted.
+ *
+ * @param name        substring the group name must contain, ignoring case
+ * @param minStudents smallest student count, inclusive
+ * @param maxStudents largest student count, inclusive
+ * @param minX        smallest X coordinate, inclusive; groups without X always pass
+ * @param maxX        largest X coordinate, inclusive
+ * @param minY        smallest Y coordinate, inclusive; groups without Y always pass
+ * @param maxY        largest Y coordinate, inclusive
+ * @param forms       accepted forms of education
+ * @param semesters   accepted semesters
+ * @param admin       substring the group admin's name must contain, ignoring case
+ */
+public record GroupFilter(String name, int minStudents, int maxStudents,
+                          double minX, double maxX, double minY, double maxY,
+                          List<FormOfEducation> forms, List<Semester> semesters, String admin)
+        implements Serializable {
+
+    public GroupFilter {
+        name = name == null ? "" : name.toLowerCase();
+        admin = admin == null ? "" : admin.toLowerCase();
+        forms = forms == null ? List.of() : List.copyOf(forms);
+        semesters = semesters == null ? List.of() : List.copyOf(semesters);
+    }
+
+    /**
+     * Checks whether the filter restricts nothing, so every group matches.
+     *
+     * @return {@code true} if no field is restricted
+     */
+    public boolean isEmpty() {
+        return name.isEmpty() && admin.isEmpty() && forms.isEmpty() && semesters.isEmpty()
+                && minStudents == Integer.MIN_VALUE && maxStudents == Integer.MAX_VALUE
+                && minX == Double.NEGATIVE_INFINITY && maxX == Double.POSITIVE_INFINITY
+                && minY == Double.NEGATIVE_INFINITY && maxY == Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Checks a study group against every restricted field.
+     *
+     * @param g the group to check
+     * @return {@code true} if the group matches
+     */
+    public boolean matches(StudyGroup g) {
+        if (!name.isEmpty() && (g.getName() == null || !g.getName().toLowerCase().contains(name))) return false;
+        Integer s = g.getStudentCount();
+        if (s != null && (s < minStudents || s > maxStudents)) return false;
+        Coordinates c = g.getCoordinates();
+        Long x = c == null ? null : c.x();
+        if (x != null && (x < minX || x > maxX)) return false;
+        Float y = c == null ? null : c.y();
+        if (y != null && (y < minY || y > maxY)) return false;
+        if (!forms.isEmpty() && (g.getFormOfEducation() == null || !forms.contains(g.getFormOfEducation())))
+            return false;
+        if (!semesters.isEmpty() && (g.getSemester() == null || !semesters.contains(g.getSemester())))
+            return false;
+        if (!admin.isEmpty() && (g.getGroupAdmin() == null || g.getGroupAdmin().name() == null
+                || !g.getGroupAdmin().name().toLowerCase().contains(admin)))
+            return false;
+        return true;
+    }
+}
@@ -78,6 +78,36 @@ public class StudyGroup implements Comparable<StudyGroup>, Serializable {
         this.owner = owner;
     }
 
+    /**
+     * Constructs a StudyGroup with a provided unique ID and creation date,
+     * e.g. when it is restored from storage or decoded from the wire.
+     *
+     * @param id The unique ID of the study group.
+     * @param name The name of the study group.
+     * @param coordinates The coordinates of the study group.
+     * @param creationDate The original creation date of the study group.
+     * @param studentCount The number of students in the group.
+     * @param formOfEducation The form of education of the group.
+     * @param semester The semester of the group.
+     * @param groupAdmin The admin of the group.
+     * @param owner The username of the owner.
+     */
+    public StudyGroup(Integer id, String name, Coordinates coordinates, LocalDateTime creationDate,
+                      Integer studentCount, FormOfEducation formOfEducation,
+                      Semester semester, Person groupAdmin, String owner) {
+        this.id = id;
+        if (id != null)
+            IDs.put(id, true);
+        this.name = name;
+        this.coordinates = coordinates;
+        this.creationDate = creationDate;
+        this.studentCount = studentCount;
+        this.formOfEducation = formOfEducation;
+        this.semester = semester;
+        this.groupAdmin = groupAdmin;
+        this.owner = owner;
+    }
+
     /**
      * Compares this StudyGroup to another StudyGroup based on the ID.
      *
@@ -232,4 +262,4 @@ public class StudyGroup implements Comparable<StudyGroup>, Serializable {
                 studyGroup.getGroupAdmin().getBirthdayString() + "," + studyGroup.getGroupAdmin().heightToString() + "," +
                 studyGroup.getGroupAdmin().passportID() + '\n';
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
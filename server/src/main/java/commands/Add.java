@@ -10,42 +10,49 @@ import commands.interfaces.Helpable;
 import io.DistributionOfTheOutputStream;
 
 import java.nio.channels.AsynchronousFileChannel;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Command for adding study groups to the collection from the console.
  */
 public class Add implements Helpable, Command<StudyGroup> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
-
     /**
-     * Adds a new study group to the collection.
+     * Adds a new study group to the database and then to the collection, as stored.
      *
      * @param studyGroup the study group to be added
+     * @return {@code true} if the group was stored
      */
-    private static void addStudyGroup(StudyGroup studyGroup) {
-        if (studyGroup != null) {
-            lock.lock();
-            DBManager.insertStudyGroup(studyGroup);
-            Collection.getInstance().reload();
-            lock.unlock();
+    private static boolean addStudyGroup(StudyGroup studyGroup) {
+        if (studyGroup == null) {
+            return false;
+        }
+        StudyGroup stored = DBManager.insertStudyGroup(studyGroup);
+        if (stored == null) {
+            return false;
         }
+        Collection.getInstance().upsert(stored);
+        return true;
     }
 
 
     @Override
-    public void execute(StudyGroup studyGroup, boolean muteMode, Authentication auth) {
+    public void execute(StudyGroup studyGroup, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
         try {
-            addStudyGroup(studyGroup);
-            if (!muteMode) {
-                DistributionOfTheOutputStream.println("Added successfully");
+            if (!addStudyGroup(studyGroup)) {
+                out.println("The study group was not added.");
+            } else if (!muteMode) {
+                out.println("Added successfully");
             }
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
         }
     }
 
+    @Override
+    public boolean isWriting() {
+        return true;
+    }
+
     /**
      * Returns the help information for the command.
      *
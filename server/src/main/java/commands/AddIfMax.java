@@ -10,30 +10,31 @@ import commands.interfaces.Helpable;
 import io.DistributionOfTheOutputStream;
 
 import java.util.Comparator;
-import java.util.TreeSet;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Command that adds a study group to the collection only if it is the largest from the console.
  */
 public class AddIfMax implements Helpable, Command<StudyGroup> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
-
     /**
      * Adds a new study group if it is the maximum in the collection.
      *
      * @param studyGroup the study group to be checked and potentially added
+     * @param out        the response of the current request
      */
-    private static void addStudyGroupIfMax(StudyGroup studyGroup, boolean muteMode) {
+    private static void addStudyGroupIfMax(StudyGroup studyGroup, boolean muteMode, DistributionOfTheOutputStream out) {
         if (studyGroup != null && isMax(studyGroup)) {
-            DBManager.insertStudyGroup(studyGroup);
-            Collection.getInstance().reload();
+            StudyGroup stored = DBManager.insertStudyGroup(studyGroup);
+            if (stored == null) {
+                out.println("The study group was not added.");
+                return;
+            }
+            Collection.getInstance().upsert(stored);
             if (!muteMode) {
-                DistributionOfTheOutputStream.println("Study group added successfully.");
+                out.println("Study group added successfully.");
             }
         } else {
-            DistributionOfTheOutputStream.println("The study group is not the maximum and was not added.");
+            out.println("The study group is not the maximum and was not added.");
         }
     }
 
@@ -44,8 +45,7 @@ public class AddIfMax implements Helpable, Command<StudyGroup> {
      * @return {@code true} if the study group is the largest; {@code false} otherwise
      */
     private static boolean isMax(StudyGroup studyGroup) {
-        TreeSet<StudyGroup> collection = Collection.getInstance().getCollection();
-        return collection.stream()
+        return Collection.getInstance().getCollection().stream()
                 .max(Comparator.naturalOrder())
                 .map(maxStudyGroup -> maxStudyGroup.compareTo(studyGroup) < 0)
                 .orElse(true);
@@ -53,17 +53,19 @@ public class AddIfMax implements Helpable, Command<StudyGroup> {
 
 
     @Override
-    public void execute(StudyGroup studyGroup, boolean muteMode, Authentication auth) {
+    public void execute(StudyGroup studyGroup, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
         try {
-            lock.lock();
-            addStudyGroupIfMax(studyGroup, muteMode);
+            addStudyGroupIfMax(studyGroup, muteMode, out);
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-        } finally {
-            lock.unlock();
         }
     }
 
+    @Override
+    public boolean isWriting() {
+        return true;
+    }
+
     /**
      * Returns the help information for the command.
      *
@@ -10,11 +10,13 @@ import storage.Logging;
 public class AddUser implements Command<Void> {
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
         if (DBManager.addUser(auth.name(), auth.password())) {
-            DistributionOfTheOutputStream.println("User added");
+            out.println("User added");
         } else {
-            DistributionOfTheOutputStream.println("User not added");
+            out.println("User with that username already exists: " + auth.name() +
+                    " or exist different problem. Pleas try another username or password.");
+            out.println("User not added");
         }
     }
 
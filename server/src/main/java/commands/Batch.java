@@ -0,0 +1,42 @@
+package commands;
+
+import commands.interfaces.Command;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+import storage.Logging;
+import storage.Request;
+
+import java.util.List;
+
+/**
+ * Runs several requests sent in one message, in order, as the sending user.
+ * <p>
+ * The output of each item is preceded by a {@code ##B#<index>} marker line so the client
+ * can split the single chunked response back into per-item results.
+ * </p>
+ */
+public class Batch implements Command<List<Request<?>>> {
+
+    public static final String ITEM_MARKER = "##B#";
+
+    @Override
+    public void execute(List<Request<?>> items, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        if (items == null) {
+            return;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            Request<?> item = items.get(i);
+            out.addToOutMassage(ITEM_MARKER + i + "\n");
+            try {
+                if (item.command() == Commands.BATCH) {
+                    out.println("Nested batches are not supported");
+                    continue;
+                }
+                item.command().execute(item.object(), muteMode, auth, out);
+            } catch (Exception e) {
+                out.println("Batch item failed: " + item.command());
+                Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            }
+        }
+    }
+}
@@ -8,8 +8,8 @@ import storage.DBManager;
 public class CheckAuthentication implements Command<Void> {
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        DistributionOfTheOutputStream.println(DBManager.isCorrectUser(auth.name(), auth.password()).toString());
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        out.println(DBManager.isCorrectUser(auth.name(), auth.password()).toString());
     }
 
 
@@ -1,18 +1,13 @@
 package commands;
 
 import collection.Collection;
-import collection.StudyGroup;
 import commands.interfaces.Command;
 import io.DistributionOfTheOutputStream;
 import storage.Authentication;
 import storage.Logging;
 
-import java.util.TreeSet;
-import java.util.concurrent.locks.ReentrantLock;
-
 public class CheckIsWithId implements Command<Integer> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
     /**
      * Validates and parses the ID input.
      * This method checks if the provided ID exists in the collection of study groups. If the ID is valid and exists,
@@ -23,23 +18,17 @@ public class CheckIsWithId implements Command<Integer> {
      * @throws RuntimeException If the ID is invalid or does not exist in the collection.
      */
     static Boolean validateId(Integer id, Authentication auth) throws RuntimeException {
-        lock.lock();
         try {
-            String currentUser = auth.name();
-            return Collection.getInstance().getCollection().stream()
-                    .filter(studyGroup -> studyGroup.getId().equals(id))
-                    .anyMatch(studyGroup -> studyGroup.getOwner().equals(currentUser));
+            return Collection.getInstance().isOwnedBy(id, auth.name());
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
             throw new RuntimeException("Validation failed: " + e.getMessage());
-        } finally {
-            lock.unlock();
         }
     }
 
 
 
-    public void execute(Integer arg, boolean muteMode, Authentication auth) {
-        DistributionOfTheOutputStream.println(validateId(arg, auth).toString());
+    public void execute(Integer arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        out.println(validateId(arg, auth).toString());
     }
 }
@@ -9,40 +9,43 @@ import storage.Authentication;
 import storage.DBManager;
 import storage.Logging;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.List;
 
 /**
  * Command that clears the entire collection.
  */
 public class Clear implements Helpable, Command<Void> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
-
     /**
-     * Clears all elements from the collection and resets study group IDs.
+     * Deletes the current user's study groups from the database and removes only the deleted
+     * ids from the collection, leaving the other users' groups untouched.
      */
-    public static void clearCollection(Authentication auth) {
+    public static void clearCollection(Authentication auth, DistributionOfTheOutputStream out) {
         try {
-            lock.lock();
-            if (DBManager.queryByOwner(auth.name(), "DELETE FROM study_group WHERE owner_username = ?")) {
-                DistributionOfTheOutputStream.println("The collection has been cleared.");
+            List<Integer> deleted = DBManager.deleteReturningIds(
+                    "DELETE FROM study_group WHERE owner_username = ? RETURNING id", auth.name());
+            Collection.getInstance().removeIds(deleted);
+            if (!deleted.isEmpty()) {
+                out.println("The collection has been cleared.");
             } else {
-                DistributionOfTheOutputStream.println("Has the collection already been cleared, " +
+                out.println("Has the collection already been cleared, " +
                                                             "or has something gone wrong");
             }
-            Collection.getInstance().reload();
-            DistributionOfTheOutputStream.println("The collection has been cleared.");
+            out.println("The collection has been cleared.");
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-        } finally {
-            lock.unlock();
         }
     }
 
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        clearCollection(auth);
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        clearCollection(auth, out);
+    }
+
+    @Override
+    public boolean isWriting() {
+        return true;
     }
 
     /**
@@ -1,8 +1,11 @@
 package commands;
 
 import commands.interfaces.Command;
+import io.DistributionOfTheOutputStream;
 import storage.Authentication;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Enum representing the available commands in the system.
  * Each command corresponds to a specific action that can be executed.
@@ -61,9 +64,40 @@ public enum Commands {
 
     HANDSHAKE(new Handshake()),
 
-    CHECK_AUTHENTICATION(new CheckAuthentication());
+    CHECK_AUTHENTICATION(new CheckAuthentication()),
+
+    /** BATCH : run the requests carried in one message in order, framing each item's output */
+    BATCH(new Batch()),
+
+    /** SUBSCRIBE : receive change notifications for a while and learn the current collection version */
+    SUBSCRIBE(new Subscribe()),
+
+    /** show_since version : display only the elements changed after the given collection version */
+    SHOW_SINCE(new ShowSince()),
+
+    /** show_binary : display all elements of the collection as one encoded block */
+    SHOW_BINARY(new ShowBinary()),
+
+    /** show_page afterId limit : display the next elements after the given id, in id order */
+    SHOW_PAGE(new ShowPage()),
 
+    /** query filter : display the elements that match the given filter */
+    QUERY(new Query()),
 
+    /** owned_ids : display the ids of all elements the current user owns */
+    OWNED_IDS(new OwnedIds()),
+
+    /** get_by_id id : display the element with the given ID */
+    GET_BY_ID(new GetById()),
+
+    /** resync : reload the collection from the database */
+    RESYNC(new Resync());
+
+    /**
+     * Serializes the writing commands, so checks such as {@code add_if_max} and the
+     * write that follows them see no other write in between.
+     */
+    private static final ReentrantLock writeLock = new ReentrantLock();
 
     private final Command<?> command;
 
@@ -77,12 +111,25 @@ public enum Commands {
     }
 
     /**
-     * Executes the command with the given argument.
+     * Executes the command with the given argument. A writing command first waits for the
+     * writes already running; a reading one starts at once.
      *
      * @param arg      The input argument for the command.
      * @param muteMode The mode in which the command should run.
+     * @param out      The response of the current request.
      */
-    public <T> void execute(T arg, boolean muteMode, Authentication auth) {
-        ((Command<T>) command).execute(arg, muteMode, auth);
+    public <T> void execute(T arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        @SuppressWarnings("unchecked")
+        Command<T> typed = (Command<T>) command;
+        if (!typed.isWriting()) {
+            typed.execute(arg, muteMode, auth, out);
+            return;
+        }
+        writeLock.lock();
+        try {
+            typed.execute(arg, muteMode, auth, out);
+        } finally {
+            writeLock.unlock();
+        }
     }
 }
@@ -11,42 +11,31 @@ import exceptions.InsufficientNumberOfArguments;
 import exceptions.RemoveOfTheNextSymbol;
 import io.DistributionOfTheOutputStream;
 
-import java.util.Objects;
-import java.util.TreeSet;
-import java.util.concurrent.locks.ReentrantLock;
-
 /**
  * Command that counts the number of study groups where a specified person is the admin from console.
  */
 public class CountByGroupAdmin implements Helpable, Command<Person> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
     /**
      * Counts the number of study groups where the user-specified person is the admin.
      */
-    public static void countByGroupAdmin(Person person) {
-        long adminCounter = Collection.getInstance().getCollection()
-                .stream()
-                .filter(studyGroup -> Objects.equals(studyGroup.getGroupAdmin(), person))
-                .count();
-        DistributionOfTheOutputStream.println("The person is an admin in " + adminCounter + " groups.");
+    public static void countByGroupAdmin(Person person, DistributionOfTheOutputStream out) {
+        int adminCounter = Collection.getInstance().idsByAdmin(person).size();
+        out.println("The person is an admin in " + adminCounter + " groups.");
     }
 
 
     @Override
-    public void execute(Person person, boolean muteMode, Authentication auth) {
+    public void execute(Person person, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
         try {
-            lock.lock();
-            countByGroupAdmin(person);
+            countByGroupAdmin(person, out);
         } catch (InsufficientNumberOfArguments e) {
-            DistributionOfTheOutputStream.println(e.getMessage());
+            out.println(e.getMessage());
         } catch (RemoveOfTheNextSymbol e) {
-            DistributionOfTheOutputStream.println(e.getMessage());
-            Exit.exit();
+            out.println(e.getMessage());
+            Exit.exit(out);
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -17,8 +17,8 @@ public class ExecuteScript implements Helpable, Command<Void> {
     private static boolean executeScriptMode = false;
 
 
-    public static void executeScript() {
-        DistributionOfTheOutputStream.printlnC("Execute script running...");
+    public static void executeScript(DistributionOfTheOutputStream out) {
+        out.printlnC("Execute script running...");
     }
 
     /**
@@ -31,8 +31,8 @@ public class ExecuteScript implements Helpable, Command<Void> {
     }
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        executeScript();
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        executeScript(out);
     }
 
     @Override
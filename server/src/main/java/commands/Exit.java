@@ -3,7 +3,6 @@ package commands;
 import commands.interfaces.Command;
 import commands.interfaces.Helpable;
 import io.DistributionOfTheOutputStream;
-import io.PreparingOfOutputStream;
 import storage.Authentication;
 
 /**
@@ -16,13 +15,13 @@ public class Exit implements Helpable, Command<Void> {
     /**
      * Exits the program with a status code of 0 (successful termination).
      */
-    public static void exit() {
-        DistributionOfTheOutputStream.println("Exiting the program...");
+    public static void exit(DistributionOfTheOutputStream out) {
+        out.println("Exiting the program...");
     }
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        exit();
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        exit(out);
     }
 
     @Override
@@ -0,0 +1,36 @@
+package commands;
+
+import collection.Collection;
+import collection.StudyGroup;
+import commands.interfaces.Command;
+import commands.interfaces.Helpable;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+import storage.Logging;
+
+import java.util.List;
+
+/**
+ * Command that shows a single study group, found through the collection's id index.
+ * <p>
+ * The group is printed as a {@code groups <base64>} block the same way {@link ShowBinary} prints
+ * groups; the block is empty if no group has the id.
+ * </p>
+ */
+public class GetById implements Helpable, Command<Integer> {
+
+    @Override
+    public void execute(Integer id, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        try {
+            StudyGroup studyGroup = id == null ? null : Collection.getInstance().getById(id);
+            ShowBinary.printGroups(out, studyGroup == null ? List.of() : List.of(studyGroup));
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    @Override
+    public String getHelp() {
+        return "Displays the study group with the given ID.";
+    }
+}
@@ -1,14 +1,25 @@
 package commands;
 
 import commands.interfaces.Command;
+import io.BinaryCodec;
 import io.DistributionOfTheOutputStream;
 import storage.Authentication;
 
-public class Handshake implements Command<Void> {
+/**
+ * Answers the client's connection check.
+ * <p>
+ * A client that understands the binary codec sends the highest version it supports;
+ * the server then appends the version both sides will use for subsequent requests.
+ * </p>
+ */
+public class Handshake implements Command<Integer> {
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        DistributionOfTheOutputStream.printlnC("Hi my little friend");
+    public void execute(Integer codecVersion, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        out.printlnC("Hi my little friend");
+        if (codecVersion != null && codecVersion > 0) {
+            out.printlnC("codec " + Math.min(codecVersion, BinaryCodec.VERSION));
+        }
     }
 
 }
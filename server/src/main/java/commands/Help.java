@@ -41,11 +41,11 @@ public class Help implements Helpable, Command<Void> {
      * Displays information about all available commands.
      * Each command's name and description are printed to the output stream.
      */
-    public static void help() {
+    public static void help(DistributionOfTheOutputStream out) {
         for (Helpable command : commands) {
-            DistributionOfTheOutputStream.println(String.join("_",
+            out.println(String.join("_",
                     command.getClass().getSimpleName().split("(?=[A-Z])")));
-            DistributionOfTheOutputStream.println("\t" + command.getHelp());
+            out.println("\t" + command.getHelp());
         }
     }
 
@@ -60,8 +60,8 @@ public class Help implements Helpable, Command<Void> {
     }
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        help();
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        help(out);
     }
 
     @Override
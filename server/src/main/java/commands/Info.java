@@ -7,32 +7,25 @@ import io.DistributionOfTheOutputStream;
 import storage.Authentication;
 import storage.Logging;
 
-import java.util.concurrent.locks.ReentrantLock;
-
 /**
  * Command that provides information about the collection.
  */
 public class Info implements Helpable, Command<Void> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
     /**
      * Prints information about the collection (type, initialization date, number of elements).
      */
-    public static void info() {
+    public static void info(DistributionOfTheOutputStream out) {
         try {
-            lock.lock();
-            Collection.getInstance().reload();
-            DistributionOfTheOutputStream.println(Collection.getInstance().getInfo());
+            out.println(Collection.getInstance().getInfo());
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-        } finally {
-            lock.unlock();
         }
     }
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        info();
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        info(out);
     }
 
     @Override
@@ -0,0 +1,36 @@
+package commands;
+
+import collection.Collection;
+import commands.interfaces.Command;
+import commands.interfaces.Helpable;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+import storage.Logging;
+
+import java.util.stream.Collectors;
+
+/**
+ * Command that lists the ids of every study group the caller owns, as {@code owned <id>,<id>,...},
+ * so a client can learn its ownership in one request instead of one CHECK_IS_WITH_ID per group.
+ */
+public class OwnedIds implements Helpable, Command<Void> {
+
+    @Override
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        try {
+            String ids = Collection.getInstance().idsByOwner(auth.name())
+                    .stream()
+                    .sorted()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(","));
+            out.printlnC("owned " + ids);
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    @Override
+    public String getHelp() {
+        return "Displays the ids of all study groups owned by the current user.";
+    }
+}
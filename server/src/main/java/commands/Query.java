@@ -0,0 +1,37 @@
+package commands;
+
+import collection.Collection;
+import collection.GroupFilter;
+import commands.interfaces.Command;
+import commands.interfaces.Helpable;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+import storage.Logging;
+
+/**
+ * Command that shows only the study groups matching a {@link GroupFilter}.
+ * <p>
+ * The filter is evaluated here, against the collection, so the reply holds just the matches,
+ * as one {@code groups <base64>} block the same way {@link ShowBinary} prints them.
+ * </p>
+ */
+public class Query implements Helpable, Command<GroupFilter> {
+
+    @Override
+    public void execute(GroupFilter filter, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        try {
+            if (filter == null) {
+                out.println("Query requires a filter.");
+                return;
+            }
+            ShowBinary.printGroups(out, Collection.getInstance().select(filter::matches));
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    @Override
+    public String getHelp() {
+        return "Displays the study groups that match the given filter.";
+    }
+}
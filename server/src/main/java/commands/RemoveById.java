@@ -10,7 +10,7 @@ import storage.DBManager;
 import storage.Logging;
 import storage.Authentication;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.List;
 
 /**
  * Command that removes a study group by its ID from the database.
@@ -18,38 +18,37 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class RemoveById implements Helpable, Command<Integer> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
-
     private boolean removeById(int id, String username) {
-        String sql = "DELETE FROM study_group WHERE id = ? AND owner_username = ?";
-        return DBManager.queryById(id, username, sql);
+        String sql = "DELETE FROM study_group WHERE id = ? AND owner_username = ? RETURNING id";
+        List<Integer> deleted = DBManager.deleteReturningIds(sql, id, username);
+        Collection.getInstance().removeIds(deleted);
+        return !deleted.isEmpty();
     }
 
     @Override
-    public void execute(Integer id, boolean muteMode, Authentication auth) {
+    public void execute(Integer id, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
         try {
-            lock.lock();
-
             boolean deleted = removeById(id, auth.name());
             if (deleted) {
-                DistributionOfTheOutputStream.println("StudyGroup with id " + id + " has been removed.");
+                out.println("StudyGroup with id " + id + " has been removed.");
             } else {
-                DistributionOfTheOutputStream.println("StudyGroup not found or you don't have permission to delete it.");
+                out.println("StudyGroup not found or you don't have permission to delete it.");
             }
 
-            Collection.getInstance().reload();
-
         } catch (InsufficientNumberOfArguments | RemoveOfTheNextSymbol e) {
-            DistributionOfTheOutputStream.println(e.getMessage());
+            out.println(e.getMessage());
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-        } finally {
-            lock.unlock();
         }
     }
 
+    @Override
+    public boolean isWriting() {
+        return true;
+    }
+
     @Override
     public String getHelp() {
         return "Removes a study group from the database by its ID. Only the group owner can perform this action.";
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -6,9 +6,7 @@ import collection.Collection;
 import collection.StudyGroup;
 import commands.interfaces.Command;
 import commands.interfaces.Helpable;
-
-import java.util.concurrent.locks.ReentrantLock;
-
+import io.DistributionOfTheOutputStream;
 
 /**
  * Command that removes study groups greater than a given one from the collection.
@@ -17,20 +15,20 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class RemoveGreater implements Helpable, Command<StudyGroup> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
-
     @Override
-    public void execute(StudyGroup studyGroup, boolean muteMode, Authentication auth) {
+    public void execute(StudyGroup studyGroup, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
         try {
-            lock.lock();
-            Command.remove(studyGroup, (sG1, sG2) -> sG1.compareTo(sG2) > 0);
+            Command.remove(studyGroup, (sG1, sG2) -> sG1.compareTo(sG2) > 0, auth);
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-        } finally {
-            lock.unlock();
         }
     }
 
+    @Override
+    public boolean isWriting() {
+        return true;
+    }
+
     @Override
     public String getHelp() {
         return "Removes all study groups from the collection that are greater than the specified study group.";
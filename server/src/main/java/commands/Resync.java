@@ -0,0 +1,55 @@
+package commands;
+
+import collection.Collection;
+import commands.interfaces.Command;
+import commands.interfaces.Helpable;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+import storage.DBManager;
+import storage.Logging;
+import storage.Server;
+
+/**
+ * Command that reloads the whole collection from the database.
+ * <p>
+ * Commands apply their own writes to the collection, so this is only needed when the table
+ * was changed behind the server's back. A reload reads the whole table, so only registered
+ * users may ask for it, and at most once per {@code server.resyncInterval} seconds.
+ * </p>
+ */
+public class Resync implements Helpable, Command<Void> {
+
+    // only touched while the write lock is held, see isWriting()
+    private static long lastReload;
+
+    @Override
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        try {
+            if (auth == null || !DBManager.isCorrectUser(auth.name(), auth.password())) {
+                out.println("Only an authenticated user can reload the collection");
+                return;
+            }
+            long now = System.currentTimeMillis();
+            long wait = lastReload + Server.getResyncInterval() * 1000L - now;
+            if (lastReload != 0 && wait > 0) {
+                out.println("The collection was reloaded recently, try again in " + (wait + 999) / 1000 + " s");
+                return;
+            }
+            lastReload = now;
+            Collection.getInstance().reload();
+            out.println("Collection reloaded, version " + Collection.getInstance().getVersion());
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    @Override
+    public boolean isWriting() {
+        return true;
+    }
+
+    @Override
+    public String getHelp() {
+        return "Reloads the collection from the database.";
+    }
+}
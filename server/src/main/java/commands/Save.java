@@ -13,10 +13,10 @@ import storage.Authentication;
 public class Save implements Helpable, Command<Void> {
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        DistributionOfTheOutputStream.println("Saving...");
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        out.println("Saving...");
         Collection.output();
-        DistributionOfTheOutputStream.println("Save finished");
+        out.println("Save finished");
     }
 
     @Override
@@ -8,42 +8,37 @@ import io.DistributionOfTheOutputStream;
 import storage.Authentication;
 import storage.Logging;
 
-import java.util.TreeSet;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.List;
 
 /**
  * Command that shows all study groups in the collection.
  */
 public class Show implements Helpable, Command<Void> {
 
-    private static final ReentrantLock lock = new ReentrantLock();
     /**
      * Displays all study groups in the collection.
      */
-    private static void show() {
+    private static void show(DistributionOfTheOutputStream out) {
         try {
-            lock.lock();
-            TreeSet<StudyGroup> collection = Collection.getInstance().getCollection();
+            List<StudyGroup> collection = Collection.getInstance().snapshot().groups();
 
             if (collection.isEmpty()) {
-                DistributionOfTheOutputStream.println("Collection is empty");
+                out.println("Collection is empty");
                 return;
             }
 
             for (StudyGroup studyGroup : collection) {
                 if (studyGroup.getGroupAdmin().birthday() != null)
-                    DistributionOfTheOutputStream.println(studyGroup.toString());
+                    out.println(studyGroup.toString());
             }
         } catch (Exception e) {
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-        } finally {
-            lock.unlock();
         }
     }
 
     @Override
-    public void execute(Void arg, boolean muteMode, Authentication auth) {
-        show();
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        show(out);
     }
 
     @Override
@@ -0,0 +1,55 @@
+package commands;
+
+import collection.Collection;
+import collection.StudyGroup;
+import commands.interfaces.Command;
+import commands.interfaces.Helpable;
+import io.BinaryCodec;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+import storage.Logging;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Command that shows all study groups as one binary block instead of text.
+ * <p>
+ * The response is a single line {@code groups <base64>}, where the block is written by
+ * {@link BinaryCodec#encodeGroups(List)}. It lists the same groups as {@link Show} and keeps
+ * every field, including the creation date and the owner.
+ * </p>
+ */
+public class ShowBinary implements Helpable, Command<Void> {
+
+    /**
+     * Prints groups as a {@code groups <base64>} line.
+     *
+     * @param out         the response
+     * @param studyGroups the groups to print; those {@link Show} hides are skipped
+     */
+    static void printGroups(DistributionOfTheOutputStream out, List<StudyGroup> studyGroups) {
+        List<StudyGroup> visible = new ArrayList<>(studyGroups.size());
+        for (StudyGroup studyGroup : studyGroups) {
+            if (studyGroup.getGroupAdmin().birthday() != null) {
+                visible.add(studyGroup);
+            }
+        }
+        out.printlnC("groups " + Base64.getEncoder().encodeToString(BinaryCodec.encodeGroups(visible)));
+    }
+
+    @Override
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        try {
+            printGroups(out, Collection.getInstance().snapshot().groups());
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    @Override
+    public String getHelp() {
+        return "Displays all study groups as one encoded block for programs to read.";
+    }
+}
@@ -0,0 +1,41 @@
+package commands;
+
+import collection.Collection;
+import commands.interfaces.Command;
+import commands.interfaces.Helpable;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+import storage.Logging;
+import storage.PageRequest;
+import storage.Server;
+
+/**
+ * Command that shows one page of the collection, ordered by id.
+ * <p>
+ * The first line is {@code page <lastId> more|end version <token>}, where {@code lastId} is the
+ * cursor for the next request and the token is as {@link Collection#token(long)} makes it. The groups follow as one {@code groups <base64>} block, the same
+ * way {@link ShowBinary} prints them.
+ * </p>
+ */
+public class ShowPage implements Helpable, Command<PageRequest> {
+
+    @Override
+    public void execute(PageRequest arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        try {
+            int afterId = arg == null ? 0 : arg.afterId();
+            int limit = arg == null ? Server.getMaxPageSize() : Math.max(1, Math.min(arg.limit(), Server.getMaxPageSize()));
+            Collection collection = Collection.getInstance();
+            Collection.Page page = collection.page(afterId, limit);
+            int lastId = page.groups().isEmpty() ? afterId : page.groups().get(page.groups().size() - 1).getId();
+            out.printlnC("page " + lastId + (page.more() ? " more" : " end") + " version " + collection.token(page.version()));
+            ShowBinary.printGroups(out, page.groups());
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    @Override
+    public String getHelp() {
+        return "Displays up to the given number of study groups whose ids follow the given id.";
+    }
+}
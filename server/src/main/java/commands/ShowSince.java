@@ -0,0 +1,57 @@
+package commands;
+
+import collection.Collection;
+import collection.StudyGroup;
+import commands.interfaces.Command;
+import commands.interfaces.Helpable;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+import storage.Logging;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Command that shows only the study groups that changed after a version the client already has.
+ * <p>
+ * The argument is the version token the client got with its last reply, see
+ * {@link Collection#token(long)}. The first line is {@code version <token> delta} or
+ * {@code version <token> snapshot}. A delta may be
+ * followed by {@code deleted <id>,<id>,...}; then the added or changed groups follow as one
+ * {@code groups <base64>} block, the same way {@link ShowBinary} prints them. A snapshot lists
+ * the whole collection and replaces whatever the client had; it is also what a client gets
+ * whose token comes from an earlier run of the server.
+ * </p>
+ */
+public class ShowSince implements Helpable, Command<String> {
+
+    @Override
+    public void execute(String since, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        try {
+            Collection collection = Collection.getInstance();
+            Collection.Changes changes = collection.changesSince(collection.versionOf(since));
+            out.printlnC("version " + collection.token(changes.version()) + (changes.snapshot() ? " snapshot" : " delta"));
+
+            Set<Integer> deleted = new TreeSet<>(changes.deleted());
+            if (!changes.snapshot()) {
+                for (StudyGroup studyGroup : changes.upserts()) {
+                    if (studyGroup.getGroupAdmin().birthday() == null) {
+                        deleted.add(studyGroup.getId());
+                    }
+                }
+            }
+            if (!deleted.isEmpty()) {
+                out.printlnC("deleted " + deleted.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            }
+            ShowBinary.printGroups(out, changes.upserts());
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    @Override
+    public String getHelp() {
+        return "Displays the study groups added or changed after the given collection version and the ids of removed ones.";
+    }
+}
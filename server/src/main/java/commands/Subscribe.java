@@ -0,0 +1,22 @@
+package commands;
+
+import collection.Collection;
+import commands.interfaces.Command;
+import io.DistributionOfTheOutputStream;
+import storage.Authentication;
+
+/**
+ * Answers a subscription request with the current collection version token.
+ * <p>
+ * The subscription itself is recorded by the request pipeline, which knows the client's
+ * address; this command only tells the client which version its view should be at.
+ * </p>
+ */
+public class Subscribe implements Command<Void> {
+
+    @Override
+    public void execute(Void arg, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out) {
+        Collection collection = Collection.getInstance();
+        out.printlnC("version " + collection.token(collection.getVersion()));
+    }
+}
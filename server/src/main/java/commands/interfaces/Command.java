@@ -4,15 +4,17 @@ import collection.Collection;
 import collection.StudyGroup;
 import io.DistributionOfTheOutputStream;
 import storage.Authentication;
+import storage.DBManager;
 
-import java.util.TreeSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.BiPredicate;
 
 /**
  * Defines a generic command with an execution contract.
  * <p>
  * Each command implementing this interface performs its specific logic
- * when {@link #execute(Object, boolean, Authentication)} is invoked.
+ * when {@link #execute(Object, boolean, Authentication, DistributionOfTheOutputStream)} is invoked.
  * </p>
  *
  * @param <T> the type of input accepted by the command
@@ -31,24 +33,46 @@ public interface Command<T> {
      * @param input the command-specific input data
      * @param muteMode if {@code true}, suppresses output or notifications; if {@code false}, produces normal output
      * @param auth the authentication context for access control and user verification
+     * @param out the response of the request being executed
      */
-    void execute(T input, boolean muteMode, Authentication auth);
+    void execute(T input, boolean muteMode, Authentication auth, DistributionOfTheOutputStream out);
 
     /**
-     * Removes study groups from the singleton collection based on a comparison with the provided group.
+     * Tells whether the command changes the study groups. Writing commands run one at a time;
+     * all other commands run concurrently and read the collection without locking.
+     *
+     * @return {@code true} if the command writes, {@code false} if it only reads
+     */
+    default boolean isWriting() {
+        return false;
+    }
+
+    /**
+     * Removes study groups from the database and the singleton collection based on a comparison
+     * with the provided group.
      * <p>
      * If {@code compare.test(existingGroup, referenceGroup)} returns {@code true},
      * the existing group is removed. For example, to remove groups greater than
      * the reference, use a predicate that tests if the existing group is greater.
+     * Only groups owned by the current user are removed, so only the user's own groups,
+     * taken from the owner index, are compared.
      * </p>
      *
      * @param studyGroup the reference study group for comparison
      * @param compare a predicate that accepts two groups and returns {@code true}
      *                if the existing group should be removed relative to the reference
+     * @param auth the user whose groups may be removed
      */
-    static void remove(StudyGroup studyGroup, BiPredicate<StudyGroup, StudyGroup> compare) {
-        TreeSet<StudyGroup> collection = Collection.getInstance().getCollection();
-        collection.removeIf(existingGroup -> compare.test(existingGroup, studyGroup));
+    static void remove(StudyGroup studyGroup, BiPredicate<StudyGroup, StudyGroup> compare, Authentication auth) {
+        Collection collection = Collection.getInstance();
+        List<Integer> candidates = new ArrayList<>();
+        for (Integer id : collection.idsByOwner(auth.name())) {
+            StudyGroup existingGroup = collection.getById(id);
+            if (existingGroup != null && compare.test(existingGroup, studyGroup)) {
+                candidates.add(id);
+            }
+        }
+        collection.removeIds(DBManager.deleteOwnedStudyGroups(candidates, auth.name()));
     }
 
 }
@@ -0,0 +1,642 @@
+package io;
+
+import collection.Coordinates;
+import collection.FormOfEducation;
+import collection.GroupFilter;
+import collection.Person;
+import collection.Semester;
+import collection.StudyGroup;
+import commands.Commands;
+import storage.PageRequest;
+import storage.Request;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of {@link Request} records and the collection types they carry.
+ * <p>
+ * A frame starts with {@link #MAGIC}, the codec version and a frame type, which can never be
+ * confused with the {@code 0xACED} header of Java serialization, so both formats can share one
+ * socket. Fields are written in a fixed order: integers as zig-zag varints, enums as ordinals,
+ * dates as epoch seconds (UTC) plus nanoseconds and strings as length-prefixed UTF-8 where a
+ * length of zero stands for {@code null}. Nullable numeric fields are announced by a bit mask.
+ * Commands travel by name because the client and server enums are not declared in the same order.
+ * </p>
+ * <p>
+ * The format is used only after the client asked for it during {@code HANDSHAKE}.
+ * </p>
+ */
+public final class BinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final byte VERSION = 1;
+    public static final byte TYPE_REQUEST = 1;
+    public static final byte TYPE_NACK = 2;
+    public static final byte TYPE_CHUNK = 3;
+    public static final byte TYPE_GROUPS = 4;
+
+    /**
+     * The largest payload of one request piece; a request longer than this is split into
+     * pieces of exactly this size, except for the last one.
+     */
+    public static final int REQUEST_CHUNK_SIZE = 4000;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_INTEGER = 1;
+    private static final int TAG_STRING = 2;
+    private static final int TAG_STUDY_GROUP = 3;
+    private static final int TAG_PERSON = 4;
+    private static final int TAG_BATCH = 5;
+    private static final int TAG_LONG = 6;
+    private static final int TAG_PAGE = 7;
+    private static final int TAG_FILTER = 8;
+
+    private static final int GROUP_HAS_ID = 1;
+    private static final int GROUP_HAS_COORDINATES = 1 << 1;
+    private static final int GROUP_HAS_X = 1 << 2;
+    private static final int GROUP_HAS_Y = 1 << 3;
+    private static final int GROUP_HAS_CREATION_DATE = 1 << 4;
+    private static final int GROUP_HAS_STUDENT_COUNT = 1 << 5;
+    private static final int GROUP_HAS_ADMIN = 1 << 6;
+
+    private static final int PERSON_HAS_BIRTHDAY = 1;
+    private static final int PERSON_HAS_HEIGHT = 1 << 1;
+
+    /**
+     * A client's report of response chunks that never arrived.
+     *
+     * @param requestId the id from the response chunk headers
+     * @param missing   the missing sequence numbers
+     */
+    public record Nack(int requestId, int[] missing) {}
+
+    /**
+     * One piece of a request that was too large for a single datagram.
+     *
+     * @param requestId the id the client chose for the whole request
+     * @param seq       the position of this piece, from zero
+     * @param total     the number of pieces
+     * @param budget    how many milliseconds the client still waited for the response when it sent the piece
+     * @param payload   the bytes of this piece
+     */
+    public record RequestChunk(int requestId, int seq, int total, int budget, ByteBuffer payload) {}
+
+    private BinaryCodec() {}
+
+    /**
+     * Checks whether a received datagram is a binary frame.
+     *
+     * @param data the datagram, positioned at its first byte
+     * @return {@code true} if the datagram starts with {@link #MAGIC}
+     */
+    public static boolean isBinary(ByteBuffer data) {
+        return data.remaining() > 0 && data.get(data.position()) == MAGIC;
+    }
+
+    /**
+     * Returns the frame type of a binary datagram without consuming it.
+     *
+     * @param data the datagram, positioned at its first byte
+     * @return the frame type, or {@code -1} if the datagram is not a binary frame
+     */
+    public static int frameType(ByteBuffer data) {
+        if (!isBinary(data) || data.remaining() < 3) {
+            return -1;
+        }
+        return data.get(data.position() + 2);
+    }
+
+    /**
+     * Encodes a negative acknowledgement listing the chunks of a response that never arrived.
+     *
+     * @param requestId the id from the response chunk headers
+     * @param missing   the missing sequence numbers
+     * @return the frame bytes
+     */
+    public static byte[] encodeNack(int requestId, int[] missing) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(TYPE_NACK);
+        out.writeInt(requestId);
+        out.writeVarInt(missing.length);
+        for (int seq : missing) {
+            out.writeVarInt(seq);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a NACK frame.
+     *
+     * @param in the frame, positioned at {@link #MAGIC}
+     * @return the request id and the missing sequence numbers
+     */
+    public static Nack decodeNack(ByteBuffer in) {
+        readHeader(in, TYPE_NACK);
+        int requestId = in.getInt();
+        int count = (int) readVarLong(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Malformed NACK");
+        }
+        int[] missing = new int[count];
+        for (int i = 0; i < count; i++) {
+            missing[i] = (int) readVarLong(in);
+        }
+        return new Nack(requestId, missing);
+    }
+
+    /**
+     * Encodes one piece of a large request. Pieces use the same {@code requestId, seq, total}
+     * header as response chunks, followed by the client's remaining time budget, so a resent
+     * request does not get a fresh deadline on the server; the concatenated payloads form an
+     * ordinary request frame or serialized request.
+     *
+     * @param requestId the id chosen by the client, echoed in the response chunks
+     * @param seq       the position of this piece
+     * @param total     the number of pieces
+     * @param budget    the milliseconds left until the client stops waiting
+     * @param data      the complete encoded request
+     * @param offset    the start of this piece in {@code data}
+     * @param length    the length of this piece
+     * @return the frame bytes
+     */
+    public static byte[] encodeRequestChunk(int requestId, int seq, int total, int budget,
+                                            byte[] data, int offset, int length) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(TYPE_CHUNK);
+        out.writeInt(requestId);
+        out.writeInt(seq);
+        out.writeInt(total);
+        out.writeInt(budget);
+        out.writeBytes(data, offset, length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a request piece. The payload is a view of {@code in}, not a copy.
+     *
+     * @param in the frame, positioned at {@link #MAGIC}
+     * @return the piece
+     */
+    public static RequestChunk decodeRequestChunk(ByteBuffer in) {
+        readHeader(in, TYPE_CHUNK);
+        int requestId = in.getInt();
+        int seq = in.getInt();
+        int total = in.getInt();
+        int budget = in.getInt();
+        if (total <= 0 || seq < 0 || seq >= total) {
+            throw new IllegalArgumentException("Malformed request chunk");
+        }
+        return new RequestChunk(requestId, seq, total, budget, in.slice());
+    }
+
+    /**
+     * Checks whether the codec can represent the payload of a request.
+     *
+     * @param object the request payload
+     * @return {@code true} if {@link #encodeRequest(Request)} will accept it
+     */
+    public static boolean supports(Object object) {
+        if (object instanceof List<?> items) {
+            return items.stream().allMatch(item -> item instanceof Request<?> request
+                    && !(request.object() instanceof List) && supports(request.object()));
+        }
+        return object == null || object instanceof Integer || object instanceof Long || object instanceof String
+                || object instanceof PageRequest || object instanceof GroupFilter
+                || object instanceof StudyGroup || object instanceof Person;
+    }
+
+    /**
+     * Encodes a request as a complete binary frame.
+     *
+     * @param request the request to encode
+     * @return the frame bytes
+     * @throws IllegalArgumentException if the payload type is not supported
+     */
+    public static byte[] encodeRequest(Request<?> request) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(TYPE_REQUEST);
+        out.writeString(request.command().name());
+        out.writeString(request.username());
+        out.writeString(request.password());
+        writeObject(out, request.object());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a binary request frame.
+     *
+     * @param in the frame, positioned at {@link #MAGIC}
+     * @return the decoded request
+     * @throws IllegalArgumentException if the frame is malformed or of an unknown version
+     */
+    public static Request<?> decodeRequest(ByteBuffer in) {
+        readHeader(in, TYPE_REQUEST);
+        Commands command = Commands.valueOf(readString(in));
+        String username = readString(in);
+        String password = readString(in);
+        Object object = readObject(in);
+        return new Request<>(command, object, username, password);
+    }
+
+    private static void readHeader(ByteBuffer in, byte expectedType) {
+        if (in.get() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary frame");
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported codec version " + version);
+        }
+        byte type = in.get();
+        if (type != expectedType) {
+            throw new IllegalArgumentException("Unexpected frame type " + type);
+        }
+    }
+
+    private static void writeObject(Writer out, Object object) {
+        if (object == null) {
+            out.writeVarInt(TAG_NULL);
+        } else if (object instanceof Integer value) {
+            out.writeVarInt(TAG_INTEGER);
+            out.writeSignedVarLong(value);
+        } else if (object instanceof Long value) {
+            out.writeVarInt(TAG_LONG);
+            out.writeSignedVarLong(value);
+        } else if (object instanceof PageRequest value) {
+            out.writeVarInt(TAG_PAGE);
+            out.writeSignedVarLong(value.afterId());
+            out.writeSignedVarLong(value.limit());
+        } else if (object instanceof GroupFilter value) {
+            out.writeVarInt(TAG_FILTER);
+            writeFilter(out, value);
+        } else if (object instanceof String value) {
+            out.writeVarInt(TAG_STRING);
+            out.writeString(value);
+        } else if (object instanceof StudyGroup value) {
+            out.writeVarInt(TAG_STUDY_GROUP);
+            writeStudyGroup(out, value);
+        } else if (object instanceof Person value) {
+            out.writeVarInt(TAG_PERSON);
+            writePerson(out, value);
+        } else if (object instanceof List<?> items) {
+            out.writeVarInt(TAG_BATCH);
+            out.writeVarInt(items.size());
+            for (Object item : items) {
+                Request<?> request = (Request<?>) item;
+                out.writeString(request.command().name());
+                writeObject(out, request.object());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported payload " + object.getClass().getName());
+        }
+    }
+
+    private static Object readObject(ByteBuffer in) {
+        int tag = (int) readVarLong(in);
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_INTEGER -> (int) readSignedVarLong(in);
+            case TAG_LONG -> readSignedVarLong(in);
+            case TAG_PAGE -> new PageRequest((int) readSignedVarLong(in), (int) readSignedVarLong(in));
+            case TAG_FILTER -> readFilter(in);
+            case TAG_STRING -> readString(in);
+            case TAG_STUDY_GROUP -> readStudyGroup(in);
+            case TAG_PERSON -> readPerson(in);
+            case TAG_BATCH -> readBatch(in);
+            default -> throw new IllegalArgumentException("Unknown payload tag " + tag);
+        };
+    }
+
+    /**
+     * Reads the items of a batch. They carry no credentials of their own: the items run
+     * as the user of the enclosing request.
+     */
+    private static List<Request<?>> readBatch(ByteBuffer in) {
+        int count = (int) readVarLong(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Malformed batch");
+        }
+        List<Request<?>> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Commands command = Commands.valueOf(readString(in));
+            items.add(new Request<>(command, readObject(in), null, null));
+        }
+        return items;
+    }
+
+    /**
+     * Encodes a list of study groups as one block, which the SHOW variants embed in their
+     * text response so the client can rebuild the groups without parsing {@code toString()}.
+     *
+     * @param studyGroups the groups, in the order they are to be decoded
+     * @return the block bytes
+     */
+    public static byte[] encodeGroups(List<StudyGroup> studyGroups) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(TYPE_GROUPS);
+        out.writeVarInt(studyGroups.size());
+        for (StudyGroup studyGroup : studyGroups) {
+            writeStudyGroup(out, studyGroup);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a block written by {@link #encodeGroups(List)}.
+     *
+     * @param in the block, positioned at {@link #MAGIC}
+     * @return the groups, with their ids, creation dates and owners as stored on the server
+     * @throws IllegalArgumentException if the block is malformed or of an unknown version
+     */
+    public static List<StudyGroup> decodeGroups(ByteBuffer in) {
+        readHeader(in, TYPE_GROUPS);
+        int count = (int) readVarLong(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Malformed group block");
+        }
+        List<StudyGroup> studyGroups = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            studyGroups.add(readStudyGroup(in));
+        }
+        return studyGroups;
+    }
+
+    /**
+     * Writes a study group in the fixed field order.
+     *
+     * @param out        the destination
+     * @param studyGroup the group to write
+     */
+    public static void writeStudyGroup(Writer out, StudyGroup studyGroup) {
+        Coordinates coordinates = studyGroup.getCoordinates();
+        int mask = 0;
+        if (studyGroup.getId() != null) mask |= GROUP_HAS_ID;
+        if (coordinates != null) mask |= GROUP_HAS_COORDINATES;
+        if (coordinates != null && coordinates.x() != null) mask |= GROUP_HAS_X;
+        if (coordinates != null && coordinates.y() != null) mask |= GROUP_HAS_Y;
+        if (studyGroup.getCreationDate() != null) mask |= GROUP_HAS_CREATION_DATE;
+        if (studyGroup.getStudentCount() != null) mask |= GROUP_HAS_STUDENT_COUNT;
+        if (studyGroup.getGroupAdmin() != null) mask |= GROUP_HAS_ADMIN;
+        out.writeVarInt(mask);
+
+        if ((mask & GROUP_HAS_ID) != 0) out.writeSignedVarLong(studyGroup.getId());
+        out.writeString(studyGroup.getName());
+        if ((mask & GROUP_HAS_X) != 0) out.writeSignedVarLong(coordinates.x());
+        if ((mask & GROUP_HAS_Y) != 0) out.writeFloat(coordinates.y());
+        if ((mask & GROUP_HAS_CREATION_DATE) != 0) writeDateTime(out, studyGroup.getCreationDate());
+        if ((mask & GROUP_HAS_STUDENT_COUNT) != 0) out.writeSignedVarLong(studyGroup.getStudentCount());
+        writeEnum(out, studyGroup.getFormOfEducation());
+        writeEnum(out, studyGroup.getSemester());
+        if ((mask & GROUP_HAS_ADMIN) != 0) writePerson(out, studyGroup.getGroupAdmin());
+        out.writeString(studyGroup.getOwner());
+    }
+
+    /**
+     * Reads a study group written by {@link #writeStudyGroup(Writer, StudyGroup)}.
+     *
+     * @param in the source
+     * @return the decoded group, with its original creation date
+     */
+    public static StudyGroup readStudyGroup(ByteBuffer in) {
+        int mask = (int) readVarLong(in);
+        Integer id = (mask & GROUP_HAS_ID) != 0 ? (int) readSignedVarLong(in) : null;
+        String name = readString(in);
+        Long x = (mask & GROUP_HAS_X) != 0 ? readSignedVarLong(in) : null;
+        Float y = (mask & GROUP_HAS_Y) != 0 ? in.getFloat() : null;
+        LocalDateTime creationDate = (mask & GROUP_HAS_CREATION_DATE) != 0 ? readDateTime(in) : null;
+        Integer studentCount = (mask & GROUP_HAS_STUDENT_COUNT) != 0 ? (int) readSignedVarLong(in) : null;
+        FormOfEducation form = readEnum(in, FormOfEducation.values());
+        Semester semester = readEnum(in, Semester.values());
+        Person admin = (mask & GROUP_HAS_ADMIN) != 0 ? readPerson(in) : null;
+        String owner = readString(in);
+        Coordinates coordinates = (mask & GROUP_HAS_COORDINATES) != 0 ? new Coordinates(x, y) : null;
+        return new StudyGroup(id, name, coordinates, creationDate, studentCount, form, semester, admin, owner);
+    }
+
+    private static void writeFilter(Writer out, GroupFilter filter) {
+        out.writeString(filter.name());
+        out.writeSignedVarLong(filter.minStudents());
+        out.writeSignedVarLong(filter.maxStudents());
+        out.writeDouble(filter.minX());
+        out.writeDouble(filter.maxX());
+        out.writeDouble(filter.minY());
+        out.writeDouble(filter.maxY());
+        out.writeVarInt(filter.forms().size());
+        for (FormOfEducation form : filter.forms()) {
+            writeEnum(out, form);
+        }
+        out.writeVarInt(filter.semesters().size());
+        for (Semester semester : filter.semesters()) {
+            writeEnum(out, semester);
+        }
+        out.writeString(filter.admin());
+    }
+
+    private static GroupFilter readFilter(ByteBuffer in) {
+        String name = readString(in);
+        int minStudents = (int) readSignedVarLong(in);
+        int maxStudents = (int) readSignedVarLong(in);
+        double minX = in.getDouble();
+        double maxX = in.getDouble();
+        double minY = in.getDouble();
+        double maxY = in.getDouble();
+        List<FormOfEducation> forms = new ArrayList<>();
+        for (int i = (int) readVarLong(in); i > 0; i--) {
+            forms.add(readEnum(in, FormOfEducation.values()));
+        }
+        List<Semester> semesters = new ArrayList<>();
+        for (int i = (int) readVarLong(in); i > 0; i--) {
+            semesters.add(readEnum(in, Semester.values()));
+        }
+        String admin = readString(in);
+        return new GroupFilter(name, minStudents, maxStudents, minX, maxX, minY, maxY, forms, semesters, admin);
+    }
+
+    private static void writePerson(Writer out, Person person) {
+        int mask = 0;
+        if (person.birthday() != null) mask |= PERSON_HAS_BIRTHDAY;
+        if (person.height() != null) mask |= PERSON_HAS_HEIGHT;
+        out.writeVarInt(mask);
+        out.writeString(person.name());
+        if ((mask & PERSON_HAS_BIRTHDAY) != 0) writeDateTime(out, person.birthday());
+        if ((mask & PERSON_HAS_HEIGHT) != 0) out.writeDouble(person.height());
+        out.writeString(person.passportID());
+    }
+
+    private static Person readPerson(ByteBuffer in) {
+        int mask = (int) readVarLong(in);
+        String name = readString(in);
+        LocalDateTime birthday = (mask & PERSON_HAS_BIRTHDAY) != 0 ? readDateTime(in) : null;
+        Double height = (mask & PERSON_HAS_HEIGHT) != 0 ? in.getDouble() : null;
+        String passportID = readString(in);
+        return new Person(name, birthday, height, passportID);
+    }
+
+    private static void writeDateTime(Writer out, LocalDateTime dateTime) {
+        out.writeSignedVarLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeVarInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        long seconds = readSignedVarLong(in);
+        int nanos = (int) readVarLong(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static void writeEnum(Writer out, Enum<?> value) {
+        out.writeVarInt(value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] values) {
+        int code = (int) readVarLong(in);
+        if (code < 0 || code > values.length) {
+            throw new IllegalArgumentException("Unknown " + values.getClass().getComponentType().getSimpleName()
+                    + " ordinal " + (code - 1));
+        }
+        return code == 0 ? null : values[code - 1];
+    }
+
+    /**
+     * Reads a string written by {@link Writer#writeString(String)}.
+     *
+     * @param in the source
+     * @return the string, or {@code null}
+     */
+    public static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds frame");
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     *
+     * @param in the source
+     * @return the value
+     */
+    public static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Reads a zig-zag encoded signed varint.
+     *
+     * @param in the source
+     * @return the value
+     */
+    public static long readSignedVarLong(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * Growable output buffer with the primitive writers used by the codec.
+     */
+    public static final class Writer {
+
+        private byte[] buffer = new byte[256];
+        private int size;
+
+        public void writeByte(int value) {
+            ensureCapacity(size + 1);
+            buffer[size++] = (byte) value;
+        }
+
+        public void writeBytes(byte[] bytes, int offset, int length) {
+            ensureCapacity(size + length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        public void writeVarInt(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        public void writeSignedVarLong(long value) {
+            writeVarInt((value << 1) ^ (value >> 63));
+        }
+
+        public void writeFloat(float value) {
+            writeInt(Float.floatToIntBits(value));
+        }
+
+        public void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            writeInt((int) (bits >>> 32));
+            writeInt((int) bits);
+        }
+
+        public void writeInt(int value) {
+            writeByte(value >>> 24);
+            writeByte(value >>> 16);
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        /**
+         * Writes a length-prefixed UTF-8 string; the prefix is the length plus one, zero means {@code null}.
+         *
+         * @param value the string, may be {@code null}
+         */
+        public void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1L);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public byte[] array() {
+            return buffer;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int required) {
+            if (required > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+            }
+        }
+    }
+}
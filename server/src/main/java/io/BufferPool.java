@@ -0,0 +1,53 @@
+package io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A fixed set of equally sized direct buffers that are leased and returned.
+ * <p>
+ * When every buffer is leased a heap buffer of the same size is handed out instead,
+ * so a burst degrades to allocation rather than blocking the reactor. Such buffers
+ * are not taken back.
+ * </p>
+ */
+public class BufferPool {
+
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final int bufferSize;
+
+    /**
+     * @param count      the number of direct buffers to preallocate
+     * @param bufferSize the capacity of each buffer
+     */
+    public BufferPool(int count, int bufferSize) {
+        this.bufferSize = bufferSize;
+        for (int i = 0; i < count; i++) {
+            free.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+    }
+
+    /**
+     * @return a cleared buffer owned by the caller until {@link #release(ByteBuffer)}
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a leased buffer. The caller must not touch it afterwards.
+     *
+     * @param buffer a buffer obtained from {@link #acquire()}, may be {@code null}
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect()) {
+            free.add(buffer);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io;
+
+import collection.Collection;
+import storage.Logging;
+import storage.Server;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes "collection changed" datagrams to subscribed clients.
+ * <p>
+ * A subscription is a lease: it lapses {@code server.subscriptionTtl} seconds after the
+ * client's last {@code SUBSCRIBE}, so clients that vanish without saying so stop costing
+ * traffic. Notifications are single chunks flagged {@link ResponseFrame#FLAG_NOTIFY} that start
+ * with the version token, see {@link Collection#token(long)}; a lost one is caught up by the
+ * token the client sees when it renews its subscription.
+ * </p>
+ */
+public class ChangeNotifier {
+
+    private record Subscriber(DatagramReactor reactor, long expiresAt) {}
+
+    private static final Map<SocketAddress, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private ChangeNotifier() {}
+
+    /**
+     * Starts or renews a subscription.
+     *
+     * @param reactor the reactor the client's datagram arrived on
+     * @param address the client to notify
+     */
+    public static void subscribe(DatagramReactor reactor, SocketAddress address) {
+        long ttl = TimeUnit.SECONDS.toNanos(Server.getSubscriptionTtl());
+        subscribers.put(address, new Subscriber(reactor, System.nanoTime() + ttl));
+    }
+
+    /**
+     * Notifies every live subscriber of a committed change.
+     *
+     * @param version the collection version after the change
+     * @param ids     the ids of the groups that were added, changed or removed
+     */
+    public static void publish(long version, Set<Integer> ids) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String token = Collection.getInstance().token(version);
+        byte[] listed = (token + " " + ids.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] payload = listed.length <= ResponseFrame.CHUNK_SIZE
+                ? listed
+                : token.getBytes(StandardCharsets.UTF_8);
+        long now = System.nanoTime();
+        subscribers.forEach((address, subscriber) -> {
+            if (subscriber.expiresAt() - now < 0) {
+                subscribers.remove(address, subscriber);
+                return;
+            }
+            try {
+                Server.sendNotification(subscriber.reactor(), address, payload);
+            } catch (Exception e) {
+                Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            }
+        });
+    }
+}
@@ -1,14 +1,74 @@
 package io;
 
+import storage.Request;
+import storage.Server;
+
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class ClientRequest {
     public SocketAddress address;
-    public ObjectInputStream input;
+    public ByteBuffer data;
+    public DatagramReactor reactor;
+    public TcpReactor.Connection connection;
+    public long receivedAt;
+    public long deadline;
+    public int requestId;
 
-    public ClientRequest(SocketAddress address, ObjectInputStream input) {
+    public ClientRequest(SocketAddress address, ByteBuffer data) {
         this.address = address;
-        this.input = input;
+        this.data = data;
+        this.receivedAt = System.nanoTime();
+        this.deadline = receivedAt + TimeUnit.MILLISECONDS.toNanos(Server.getRequestTimeout());
+        this.requestId = ThreadLocalRandom.current().nextInt();
+    }
+
+    /**
+     * Moves the deadline to when the client stops waiting, as it reported with the request.
+     * The server's own request timeout stays the upper bound.
+     *
+     * @param budgetMillis the milliseconds the client still waited when it sent the request
+     */
+    public void limitDeadline(int budgetMillis) {
+        long budget = Math.max(0, Math.min(budgetMillis, Server.getRequestTimeout()));
+        deadline = receivedAt + TimeUnit.MILLISECONDS.toNanos(budget);
+    }
+
+    /**
+     * @return {@code true} once the client has stopped waiting for the response
+     */
+    public boolean isExpired() {
+        return System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * Decodes the datagram, using the binary codec when the client negotiated it
+     * and Java serialization otherwise.
+     *
+     * @return the decoded request
+     * @throws IOException            if the serialized stream is corrupt
+     * @throws ClassNotFoundException if the serialized stream names an unknown class
+     */
+    public Request<?> readRequest() throws IOException, ClassNotFoundException {
+        if (BinaryCodec.isBinary(data)) {
+            return BinaryCodec.decodeRequest(data);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteBufferInputStream(data))) {
+            return (Request<?>) input.readObject();
+        }
+    }
+
+    /**
+     * Hands the receive buffer back to the reactor's pool. Call once, after decoding.
+     */
+    public void release() {
+        if (reactor != null && data != null) {
+            reactor.release(data);
+        }
+        data = null;
     }
 }
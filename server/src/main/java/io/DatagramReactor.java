@@ -0,0 +1,184 @@
+package io;
+
+import storage.Logging;
+import storage.Server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Selector-driven event loop for a non-blocking {@link DatagramChannel}.
+ * <p>
+ * The reactor blocks on {@code OP_READ} instead of polling, drains every datagram
+ * that is ready on each wakeup and hands it to the dispatcher. Responses that the
+ * kernel cannot accept right away are queued and flushed once the channel reports
+ * {@code OP_WRITE}, so worker threads never spin on a full socket buffer.
+ * </p>
+ * <p>
+ * Every datagram is received into its own buffer leased from a pool of direct buffers,
+ * so the next receive cannot overwrite a request that a worker is still decoding.
+ * The buffer goes back to the pool through {@link ClientRequest#release()}. Response
+ * frames are written into a second pool of frame-sized direct buffers, one per request in
+ * flight, so sending allocates nothing whichever thread the request runs on.
+ * </p>
+ */
+public class DatagramReactor implements Runnable {
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final Consumer<ClientRequest> dispatcher;
+    private final LongAdder received;
+    private final Queue<PendingDatagram> pending = new ConcurrentLinkedQueue<>();
+    private final BufferPool buffers = new BufferPool(Server.getReceiveBuffers(), Server.getReceiveBufferSize());
+    private final BufferPool sendBuffers = new BufferPool(Server.getMaxInFlight(),
+            ResponseFrame.HEADER_SIZE + ResponseFrame.CHUNK_SIZE);
+
+    /**
+     * A response datagram waiting for the channel to become writable.
+     */
+    private record PendingDatagram(ByteBuffer data, SocketAddress address) {}
+
+    /**
+     * Registers the channel with a fresh selector.
+     *
+     * @param channel    a bound channel; it is switched to non-blocking mode
+     * @param dispatcher receives every decoded client request, must not block
+     * @param received   counts the datagrams read from this channel
+     * @throws IOException if the selector cannot be opened or the channel registered
+     */
+    public DatagramReactor(DatagramChannel channel, Consumer<ClientRequest> dispatcher,
+                           LongAdder received) throws IOException {
+        this.channel = channel;
+        this.dispatcher = dispatcher;
+        this.received = received;
+        this.selector = Selector.open();
+        channel.configureBlocking(false);
+        this.key = channel.register(selector, SelectionKey.OP_READ);
+    }
+
+    /**
+     * Runs the event loop until the channel is closed.
+     */
+    @Override
+    public void run() {
+        try (selector) {
+            while (channel.isOpen()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey ready = keys.next();
+                    keys.remove();
+                    if (!ready.isValid()) {
+                        continue;
+                    }
+                    if (ready.isReadable()) {
+                        drain();
+                    }
+                    if (ready.isValid() && ready.isWritable()) {
+                        flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    /**
+     * Sends a datagram, or queues it and asks the loop for {@code OP_WRITE}
+     * when the socket buffer is full. Safe to call from any thread.
+     *
+     * @param data    the datagram payload, positioned for reading; the caller may reuse it once this returns
+     * @param address the destination
+     * @throws IOException if the channel fails
+     */
+    public void send(ByteBuffer data, SocketAddress address) throws IOException {
+        if (pending.isEmpty() && channel.send(data, address) > 0) {
+            return;
+        }
+        ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+        copy.put(data).flip();
+        pending.add(new PendingDatagram(copy, address));
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        selector.wakeup();
+    }
+
+    /**
+     * Leases a buffer large enough for one response frame.
+     *
+     * @return a cleared buffer owned by the caller until {@link #releaseSendBuffer(ByteBuffer)}
+     */
+    public ByteBuffer acquireSendBuffer() {
+        return sendBuffers.acquire();
+    }
+
+    /**
+     * Returns a buffer leased with {@link #acquireSendBuffer()}.
+     *
+     * @param buffer the buffer, which the caller must not touch afterwards
+     */
+    public void releaseSendBuffer(ByteBuffer buffer) {
+        sendBuffers.release(buffer);
+    }
+
+    /**
+     * Returns a receive buffer to the pool.
+     *
+     * @param buffer a buffer this reactor received a request into
+     */
+    void release(ByteBuffer buffer) {
+        buffers.release(buffer);
+    }
+
+    /**
+     * Reads every datagram that is currently queued in the kernel.
+     */
+    private void drain() {
+        while (true) {
+            ByteBuffer buffer = buffers.acquire();
+            try {
+                ClientRequest request = Server.readFromClient(channel, buffer);
+                if (request == null) {
+                    buffers.release(buffer);
+                    return;
+                }
+                request.reactor = this;
+                received.increment();
+                dispatcher.accept(request);
+            } catch (IOException e) {
+                buffers.release(buffer);
+                Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+                if (!channel.isOpen()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes queued responses until the queue is empty or the socket is full again.
+     */
+    private void flush() throws IOException {
+        PendingDatagram next;
+        while ((next = pending.peek()) != null) {
+            if (channel.send(next.data(), next.address()) == 0) {
+                return;
+            }
+            pending.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        if (!pending.isEmpty()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+}
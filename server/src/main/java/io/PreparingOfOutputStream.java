@@ -1,19 +1,104 @@
 package io;
 
-public class PreparingOfOutputStream {
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
-    private static String outMessage;
+/**
+ * Request-scoped response sink.
+ * <p>
+ * Output is encoded to UTF-8 once, on append, into a growable byte array leased from a small
+ * shared pool, so building a response is linear in its size and the sender can chunk straight
+ * from {@link #array()}. Call {@link #release()} once the response has been sent.
+ * </p>
+ */
+public class PreparingOfOutputStream implements DistributionOfTheOutputStream {
 
-    public static String getOutMessage() {
-        return outMessage;
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_POOLED_CAPACITY = 1 << 20;
+    private static final int MAX_POOLED_BUFFERS = 32;
+
+    private static final Queue<byte[]> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    private byte[] buffer;
+    private int size;
+
+    public PreparingOfOutputStream() {
+        byte[] leased = pool.poll();
+        if (leased != null) {
+            pooled.decrementAndGet();
+        }
+        buffer = leased != null ? leased : new byte[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public void addToOutMassage(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends raw bytes to the response.
+     *
+     * @param bytes  the source array
+     * @param offset the first byte to copy
+     * @param length the number of bytes to copy
+     */
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    /**
+     * Returns the backing array; only the first {@link #size()} bytes are meaningful.
+     *
+     * @return the backing array
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the response length in bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes the whole response as a string.
+     *
+     * @return the response text
+     */
+    public String getOutMessage() {
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
     }
 
-    public static void addToOutMassage(String message) {
-        outMessage = outMessage + message;
+    /**
+     * Returns the buffer to the pool. The sink must not be used afterwards.
+     */
+    public void release() {
+        byte[] released = buffer;
+        buffer = null;
+        size = 0;
+        if (released != null && released.length <= MAX_POOLED_CAPACITY
+                && pooled.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            pool.add(released);
+        } else if (released != null && released.length <= MAX_POOLED_CAPACITY) {
+            pooled.decrementAndGet();
+        }
     }
 
-    public static void clear() {
-        outMessage = "";
+    private void ensureCapacity(int required) {
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
     }
 
 }
@@ -0,0 +1,175 @@
+package io;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Joins the pieces of requests that did not fit in one datagram. Single-piece requests,
+ * which the client sends to attach its own request id, pass straight through.
+ * <p>
+ * Each client may hold at most {@code maxBytesPerClient} bytes of unfinished requests,
+ * counting both the pieces and the table of piece references each request allocates, and
+ * at most {@link #MAX_PARTIALS_PER_CLIENT} unfinished requests; a piece that would exceed
+ * either bound discards that client's partial requests. No single request may grow past
+ * {@code maxBytesPerClient} bytes either: a piece announcing more pieces of
+ * {@link BinaryCodec#REQUEST_CHUNK_SIZE} than such a request has, or carrying a larger
+ * payload, is ignored, and a request whose pieces add up to more is dropped. Requests that
+ * stay incomplete longer than the timeout are dropped, and the client's own deadline takes
+ * care of the rest.
+ * </p>
+ */
+public class RequestAssembler {
+
+    /**
+     * The most unfinished requests one client may hold at once.
+     */
+    static final int MAX_PARTIALS_PER_CLIENT = 16;
+
+    /**
+     * What one slot of a piece table is charged, the size of a reference on a 64-bit heap.
+     */
+    private static final int PART_REFERENCE_BYTES = 8;
+
+    private static final class Partial {
+        final byte[][] parts;
+        final long startedAt;
+        int received;
+        int bytes;
+
+        Partial(int total, long startedAt) {
+            this.parts = new byte[total][];
+            this.startedAt = startedAt;
+        }
+
+        /**
+         * The bytes this request is charged against its client's bound.
+         */
+        int footprint() {
+            return bytes + parts.length * PART_REFERENCE_BYTES;
+        }
+    }
+
+    private static final class ClientBuffer {
+        final Map<Integer, Partial> partials = new HashMap<>();
+        int bytes;
+    }
+
+    private final Map<SocketAddress, ClientBuffer> clients = new ConcurrentHashMap<>();
+    private final int maxBytesPerClient;
+    private final int maxPartsPerRequest;
+    private final long timeoutNanos;
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * @param maxBytesPerClient the bound on unfinished request bytes held for one client
+     * @param timeoutMillis     how long a request may stay incomplete
+     */
+    public RequestAssembler(int maxBytesPerClient, int timeoutMillis) {
+        this.maxBytesPerClient = maxBytesPerClient;
+        this.maxPartsPerRequest = (maxBytesPerClient + BinaryCodec.REQUEST_CHUNK_SIZE - 1)
+                / BinaryCodec.REQUEST_CHUNK_SIZE;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Stores one piece.
+     *
+     * @param address the sending client
+     * @param chunk   the decoded piece; its payload is copied
+     * @return the complete request bytes once the last piece arrived, otherwise {@code null}
+     */
+    public byte[] accept(SocketAddress address, BinaryCodec.RequestChunk chunk) {
+        long now = System.nanoTime();
+        if (now - lastSweep > timeoutNanos) {
+            lastSweep = now;
+            sweep(now);
+        }
+        ByteBuffer payload = chunk.payload();
+        if (chunk.total() == 1) {
+            byte[] whole = new byte[payload.remaining()];
+            payload.get(whole);
+            return whole;
+        }
+        if (chunk.total() > maxPartsPerRequest || payload.remaining() > BinaryCodec.REQUEST_CHUNK_SIZE) {
+            return null;
+        }
+        ClientBuffer client = clients.computeIfAbsent(address, key -> new ClientBuffer());
+        synchronized (client) {
+            dropExpired(client, now);
+            Partial partial = client.partials.get(chunk.requestId());
+            if (partial != null && partial.parts.length != chunk.total()) {
+                client.bytes -= partial.footprint();
+                client.partials.remove(chunk.requestId());
+                partial = null;
+            }
+            if (partial != null && partial.bytes + payload.remaining() > maxBytesPerClient) {
+                client.bytes -= partial.footprint();
+                client.partials.remove(chunk.requestId());
+                return null;
+            }
+            int cost = payload.remaining() + (partial == null ? chunk.total() * PART_REFERENCE_BYTES : 0);
+            if (client.bytes + cost > maxBytesPerClient
+                    || (partial == null && client.partials.size() >= MAX_PARTIALS_PER_CLIENT)) {
+                client.partials.clear();
+                client.bytes = 0;
+                return null;
+            }
+            if (partial == null) {
+                partial = new Partial(chunk.total(), now);
+                client.partials.put(chunk.requestId(), partial);
+                client.bytes += partial.footprint();
+            }
+            if (partial.parts[chunk.seq()] != null) {
+                return null;
+            }
+            byte[] part = new byte[payload.remaining()];
+            payload.get(part);
+            partial.parts[chunk.seq()] = part;
+            partial.received++;
+            partial.bytes += part.length;
+            client.bytes += part.length;
+            if (partial.received < partial.parts.length) {
+                return null;
+            }
+            client.partials.remove(chunk.requestId());
+            client.bytes -= partial.footprint();
+            byte[] whole = new byte[partial.bytes];
+            int offset = 0;
+            for (byte[] piece : partial.parts) {
+                System.arraycopy(piece, 0, whole, offset, piece.length);
+                offset += piece.length;
+            }
+            return whole;
+        }
+    }
+
+    private void dropExpired(ClientBuffer client, long now) {
+        Iterator<Partial> partials = client.partials.values().iterator();
+        while (partials.hasNext()) {
+            Partial partial = partials.next();
+            if (now - partial.startedAt > timeoutNanos) {
+                client.bytes -= partial.footprint();
+                partials.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets clients whose partial requests have all expired.
+     */
+    private void sweep(long now) {
+        clients.forEach((address, client) -> {
+            synchronized (client) {
+                dropExpired(client, now);
+                if (client.partials.isEmpty()) {
+                    clients.remove(address, client);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,198 @@
+package io;
+
+import commands.Commands;
+import storage.Logging;
+import storage.Request;
+import storage.Server;
+import storage.ServerMetrics;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs each received datagram or TCP frame as a single task: decode, execute and send.
+ * NACK frames bypass the executor and are answered from the response cache, and the pieces
+ * of multi-datagram requests are joined by a {@link RequestAssembler} before admission.
+ * <p>
+ * The number of requests that are queued or running at once is bounded, so a burst
+ * cannot grow the executor's backlog without limit. Requests over the limit are answered
+ * with a "busy" frame, and requests whose deadline passed while they were queued are
+ * dropped without running, since the client no longer waits for them. Both are counted
+ * in {@link ServerMetrics} together with the queue depth.
+ * </p>
+ */
+public class RequestPipeline {
+
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final RequestAssembler assembler = new RequestAssembler(
+            Server.getMaxRequestBytes(), Server.getRequestAssemblyTimeout());
+
+    /**
+     * @param executor    the executor that runs requests
+     * @param maxInFlight the maximum number of requests queued or running at once
+     */
+    public RequestPipeline(ExecutorService executor, int maxInFlight) {
+        this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Schedules a request. Never blocks, so it is safe to call from the reactor thread.
+     *
+     * @param req the received datagram
+     */
+    public void submit(ClientRequest req) {
+        int type = BinaryCodec.frameType(req.data);
+        if (req.connection != null && (type == BinaryCodec.TYPE_NACK || type == BinaryCodec.TYPE_CHUNK)) {
+            refuseOverTcp(req);
+        } else if (type == BinaryCodec.TYPE_NACK) {
+            resend(req);
+        } else if (type == BinaryCodec.TYPE_CHUNK) {
+            ClientRequest whole = assemble(req);
+            if (whole != null) {
+                admit(whole);
+            }
+        } else {
+            admit(req);
+        }
+    }
+
+    /**
+     * Queues a complete request, or refuses it when too many are in flight.
+     */
+    private void admit(ClientRequest req) {
+        if (!inFlight.tryAcquire()) {
+            reject(req);
+            return;
+        }
+        ServerMetrics.enqueued();
+        try {
+            executor.execute(() -> {
+                ServerMetrics.dequeued();
+                try {
+                    if (req.isExpired()) {
+                        req.release();
+                        ServerMetrics.expired();
+                        if (req.connection != null) {
+                            req.connection.resume();
+                        }
+                        return;
+                    }
+                    process(req);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            ServerMetrics.dequeued();
+            inFlight.release();
+            reject(req);
+        }
+    }
+
+    /**
+     * Adds a request piece to the assembler, releasing its receive buffer.
+     *
+     * @return the complete request once its last piece arrived, otherwise {@code null}
+     */
+    private ClientRequest assemble(ClientRequest piece) {
+        try {
+            BinaryCodec.RequestChunk chunk = BinaryCodec.decodeRequestChunk(piece.data);
+            byte[] whole = assembler.accept(piece.address, chunk);
+            if (whole == null) {
+                return null;
+            }
+            ClientRequest req = new ClientRequest(piece.address, ByteBuffer.wrap(whole));
+            req.reactor = piece.reactor;
+            req.requestId = chunk.requestId();
+            req.limitDeadline(chunk.budget());
+            return req;
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            return null;
+        } finally {
+            piece.release();
+        }
+    }
+
+    /**
+     * Answers a NACK or request piece that came over TCP, where frames are never split or
+     * lost, with an error, so the connection moves on to its next request.
+     */
+    private static void refuseOverTcp(ClientRequest req) {
+        req.release();
+        PreparingOfOutputStream response = new PreparingOfOutputStream();
+        try {
+            response.println("Request pieces and NACKs are only accepted over UDP");
+            Server.sendResponse(req.connection, response);
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            req.connection.resume();
+        } finally {
+            response.release();
+        }
+    }
+
+    /**
+     * Refuses a request on the calling thread with a "busy" frame.
+     */
+    private static void reject(ClientRequest req) {
+        req.release();
+        ServerMetrics.rejected();
+        try {
+            if (req.connection != null) {
+                req.connection.send(ResponseFrame.FLAG_BUSY, new byte[0], 0);
+            } else {
+                Server.sendBusy(req.reactor, req.address, req.requestId);
+            }
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    /**
+     * Answers a NACK on the calling thread: it only copies cached chunks to the socket.
+     */
+    private static void resend(ClientRequest req) {
+        try {
+            BinaryCodec.Nack nack = BinaryCodec.decodeNack(req.data);
+            Server.resendChunks(req.reactor, req.address, nack.requestId(), nack.missing());
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        } finally {
+            req.release();
+        }
+    }
+
+    private static void process(ClientRequest req) {
+        PreparingOfOutputStream response = new PreparingOfOutputStream();
+        try {
+            Request<?> request;
+            try {
+                request = req.readRequest();
+            } finally {
+                req.release();
+            }
+            if (request.command() == Commands.SUBSCRIBE && req.reactor != null) {
+                ChangeNotifier.subscribe(req.reactor, req.address);
+            }
+            CommandsHandler.execute(request, false, response);
+            if (req.connection != null) {
+                Server.sendResponse(req.connection, response);
+            } else {
+                Server.sendResponse(req.reactor, req.address, req.requestId, response);
+            }
+            ServerMetrics.completed(System.nanoTime() - req.receivedAt);
+        } catch (Exception e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            if (req.connection != null) {
+                req.connection.resume();
+            }
+        } finally {
+            response.release();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io;
+
+import java.net.SocketAddress;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps recently sent multi-chunk responses for a short window so that chunks a client
+ * reports as missing can be sent again without re-running the command.
+ */
+public class ResponseCache {
+
+    /**
+     * A cached response exactly as it was chunked.
+     *
+     * @param data  the payload that was split into chunks
+     * @param flags the flags written in every chunk header
+     */
+    public record Cached(byte[] data, byte flags) {}
+
+    private record Key(SocketAddress address, int requestId) {}
+
+    private record Entry(Cached response, long expiresAt) {}
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final int capacity;
+
+    /**
+     * @param windowSeconds how long a response stays available for retransmission
+     * @param capacity      the maximum number of responses kept at once
+     */
+    public ResponseCache(int windowSeconds, int capacity) {
+        this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Remembers a response. The data array must not be modified afterwards.
+     *
+     * @param requestId the id written in the chunk headers
+     * @param address   the client the response was sent to
+     * @param data      the complete response
+     * @param flags     the chunk header flags
+     */
+    public void put(int requestId, SocketAddress address, byte[] data, byte flags) {
+        if (capacity <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (entries.size() >= capacity) {
+            evict(now);
+        }
+        entries.put(new Key(address, requestId), new Entry(new Cached(data, flags), now + windowNanos));
+    }
+
+    /**
+     * Looks up a response for retransmission.
+     *
+     * @param requestId the id from the client's NACK
+     * @param address   the client that sent the NACK
+     * @return the response, or {@code null} if it expired or was never sent to this client
+     */
+    public Cached get(int requestId, SocketAddress address) {
+        Key key = new Key(address, requestId);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() - System.nanoTime() < 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.response();
+    }
+
+    /**
+     * Drops expired responses and, if the cache is still full, the first remaining one.
+     */
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() - now < 0);
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (entries.size() >= capacity && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Layout of a response chunk: {@code int requestId, int seq, int total, byte flags}
+ * followed by up to {@link #CHUNK_SIZE} bytes of payload. Flags describe the whole
+ * reassembled response and are repeated in every chunk.
+ */
+public final class ResponseFrame {
+
+    public static final int HEADER_SIZE = 4 + 4 + 4 + 1;
+    public static final int CHUNK_SIZE = 1000;
+
+    /**
+     * The reassembled payload is a zlib stream of the UTF-8 response text.
+     */
+    public static final byte FLAG_COMPRESSED = 1;
+
+    /**
+     * The server refused the request because its queue is full; the chunk has no payload.
+     */
+    public static final byte FLAG_BUSY = 2;
+
+    /**
+     * An unsolicited change notification for a subscribed client; the request id is zero
+     * and the payload is {@code "<version> <id>,<id>,..."} in UTF-8, without ids when there
+     * are too many to list.
+     */
+    public static final byte FLAG_NOTIFY = 4;
+
+    private ResponseFrame() {
+    }
+
+    /**
+     * Deflates a response with the fastest level.
+     *
+     * @param data the response bytes
+     * @param size the number of bytes to use from {@code data}
+     * @return the compressed bytes, or {@code null} if compression does not make them smaller
+     */
+    public static byte[] compress(byte[] data, int size) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, 0, size);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, size / 4));
+            byte[] block = new byte[CHUNK_SIZE];
+            while (!deflater.finished()) {
+                out.write(block, 0, deflater.deflate(block));
+                if (out.size() >= size) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Restores a response compressed by {@link #compress(byte[], int)}.
+     *
+     * @param data the reassembled payload
+     * @return the original response bytes
+     * @throws DataFormatException if the payload is not a valid deflate stream
+     */
+    public static byte[] decompress(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] block = new byte[4 * CHUNK_SIZE];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(block);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed response");
+                }
+                out.write(block, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
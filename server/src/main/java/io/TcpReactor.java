@@ -0,0 +1,197 @@
+package io;
+
+import storage.Logging;
+import storage.Server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Selector-driven TCP listener for bulk transfers.
+ * <p>
+ * A request frame is an {@code int} length followed by the same bytes a client would send
+ * in a datagram. A response frame is an {@code int} length, one flags byte as in
+ * {@link ResponseFrame} and the response payload, so there is no chunking and no
+ * application-level reassembly. Requests go through the same pipeline as UDP ones.
+ * </p>
+ * <p>
+ * Responses carry no request id, so a connection is read one request at a time: after a
+ * complete frame the connection stops reading until the request is answered or dropped,
+ * and responses therefore leave in the order the requests arrived.
+ * </p>
+ */
+public class TcpReactor implements Runnable {
+
+    private final ServerSocketChannel listener;
+    private final Selector selector;
+    private final Consumer<ClientRequest> dispatcher;
+
+    /**
+     * One accepted client socket with its partial input and pending output.
+     */
+    public final class Connection {
+        private final SocketChannel socket;
+        private final SelectionKey key;
+        private final ByteBuffer header = ByteBuffer.allocate(4);
+        private final Queue<ByteBuffer> pending = new ConcurrentLinkedQueue<>();
+        private ByteBuffer frame;
+
+        private Connection(SocketChannel socket) throws IOException {
+            this.socket = socket;
+            socket.configureBlocking(false);
+            this.key = socket.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        /**
+         * Queues a response frame. Safe to call from any thread.
+         *
+         * @param flags the {@link ResponseFrame} flags
+         * @param data  the response payload
+         * @param size  the number of bytes to send from {@code data}
+         */
+        public void send(byte flags, byte[] data, int size) {
+            ByteBuffer out = ByteBuffer.allocate(4 + 1 + size);
+            out.putInt(1 + size).put(flags).put(data, 0, size).flip();
+            pending.add(out);
+            resume();
+        }
+
+        /**
+         * Reads the next request. Called once per request: by {@link #send} when it is
+         * answered, or by the pipeline when it is dropped without an answer. Safe to call
+         * from any thread.
+         */
+        public void resume() {
+            if (key.isValid()) {
+                key.interestOps(pending.isEmpty()
+                        ? SelectionKey.OP_READ
+                        : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                selector.wakeup();
+            }
+        }
+
+        private void read() throws IOException {
+            while (true) {
+                if (frame == null) {
+                    if (socket.read(header) < 0) {
+                        close();
+                        return;
+                    }
+                    if (header.hasRemaining()) {
+                        return;
+                    }
+                    int length = header.flip().getInt();
+                    header.clear();
+                    if (length <= 0 || length > Server.getMaxRequestBytes()) {
+                        close();
+                        return;
+                    }
+                    frame = ByteBuffer.allocate(length);
+                }
+                if (socket.read(frame) < 0) {
+                    close();
+                    return;
+                }
+                if (frame.hasRemaining()) {
+                    return;
+                }
+                ClientRequest request = new ClientRequest(socket.getRemoteAddress(), frame.flip());
+                request.connection = this;
+                frame = null;
+                key.interestOps(pending.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+                dispatcher.accept(request);
+                return;
+            }
+        }
+
+        private void flush() throws IOException {
+            ByteBuffer next;
+            while ((next = pending.peek()) != null) {
+                socket.write(next);
+                if (next.hasRemaining()) {
+                    return;
+                }
+                pending.poll();
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (!pending.isEmpty()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void close() {
+            key.cancel();
+            pending.clear();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            }
+        }
+    }
+
+    /**
+     * @param listener   a bound server socket; it is switched to non-blocking mode
+     * @param dispatcher receives every complete request, must not block
+     * @throws IOException if the selector cannot be opened or the listener registered
+     */
+    public TcpReactor(ServerSocketChannel listener, Consumer<ClientRequest> dispatcher) throws IOException {
+        this.listener = listener;
+        this.dispatcher = dispatcher;
+        this.selector = Selector.open();
+        listener.configureBlocking(false);
+        listener.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Runs the event loop until the listener is closed.
+     */
+    @Override
+    public void run() {
+        try (selector) {
+            while (listener.isOpen()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey ready = keys.next();
+                    keys.remove();
+                    if (!ready.isValid()) {
+                        continue;
+                    }
+                    if (ready.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) ready.attachment();
+                    try {
+                        if (ready.isReadable()) {
+                            connection.read();
+                        }
+                        if (ready.isValid() && ready.isWritable()) {
+                            connection.flush();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel socket;
+        while ((socket = listener.accept()) != null) {
+            new Connection(socket);
+        }
+    }
+}
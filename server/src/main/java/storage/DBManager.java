@@ -1,10 +1,12 @@
 package storage;
 
 import collection.*;
-import io.DistributionOfTheOutputStream;
 
 import java.io.InputStream;
 import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 public class DBManager {
@@ -31,43 +33,121 @@ public class DBManager {
      * Reads study groups from DB and populates the collection.
      */
     public static void requestStudyGroup(String query) {
+        List<StudyGroup> groups = selectStudyGroups(query);
+        if (groups != null) {
+            for (StudyGroup group : groups) {
+                Collection.getInstance().addElement(group);
+            }
+        }
+    }
+
+    /**
+     * Reads study groups from DB without touching the collection.
+     *
+     * @return the groups, or null if the query failed
+     */
+    public static List<StudyGroup> selectStudyGroups(String query) {
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
 
             System.out.println("Connected to database successfully");
+            List<StudyGroup> groups = new ArrayList<>();
             while (rs.next()) {
-                Coordinates coordinates = new Coordinates(
-                        rs.getLong("x") == 0 ? null : rs.getLong("x"),
-                        rs.getFloat("y") == 0 ? null : rs.getFloat("y")
-                );
-                Person admin = new Person(
-                        rs.getString("admin_name"),
-                        rs.getDate("admin_birthday") != null ?
-                                rs.getDate("admin_birthday").toLocalDate().atStartOfDay() : null,
-                        rs.getDouble("admin_height") == 0 ? null : rs.getDouble("admin_height"),
-                        rs.getString("admin_passport_id")
-                );
-                String ownerUsername = rs.getString("owner_username");
-
-                StudyGroup group = new StudyGroup(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        coordinates,
-                        rs.getInt("students_count"),
-                        FormOfEducation.valueOf(rs.getString("form_of_education")),
-                        Semester.valueOf(rs.getString("semester")),
-                        admin,
-                        ownerUsername
-                );
-                Collection.getInstance().addElement(group);
+                groups.add(readStudyGroup(rs));
             }
+            return groups;
         } catch (SQLException e) {
             System.out.println("Connection or query error: " + e.getMessage());
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            return null;
         }
     }
 
+    /**
+     * Maps the current row of a study_group result set, including the id and the creation
+     * date the database assigned.
+     */
+    private static StudyGroup readStudyGroup(ResultSet rs) throws SQLException {
+        Coordinates coordinates = new Coordinates(
+                rs.getLong("x") == 0 ? null : rs.getLong("x"),
+                rs.getFloat("y") == 0 ? null : rs.getFloat("y")
+        );
+        Person admin = new Person(
+                rs.getString("admin_name"),
+                rs.getDate("admin_birthday") != null ?
+                        rs.getDate("admin_birthday").toLocalDate().atStartOfDay() : null,
+                rs.getDouble("admin_height") == 0 ? null : rs.getDouble("admin_height"),
+                rs.getString("admin_passport_id")
+        );
+        Timestamp created = rs.getTimestamp("creation_date");
+
+        return new StudyGroup(
+                rs.getInt("id"),
+                rs.getString("name"),
+                coordinates,
+                created != null ? created.toLocalDateTime() : LocalDateTime.now(),
+                rs.getInt("students_count"),
+                FormOfEducation.valueOf(rs.getString("form_of_education")),
+                Semester.valueOf(rs.getString("semester")),
+                admin,
+                rs.getString("owner_username")
+        );
+    }
+
+    /**
+     * Runs a DELETE that ends with {@code RETURNING id}.
+     *
+     * @param query  the statement
+     * @param params values for its placeholders, in order
+     * @return the ids of the deleted rows; empty if none matched or the statement failed
+     */
+    public static List<Integer> deleteReturningIds(String query, Object... params) {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection connection = DBManager.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(query)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt("id"));
+                }
+            }
+        } catch (SQLException e) {
+            Logging.log(Logging.makeMessage("SQL error during work " + e.getMessage(), e.getStackTrace()));
+        }
+        return ids;
+    }
+
+    /**
+     * Deletes the listed study groups that belong to a user.
+     *
+     * @param ids      candidate ids
+     * @param username the owner; rows of other users are left alone
+     * @return the ids that were actually deleted
+     */
+    public static List<Integer> deleteOwnedStudyGroups(List<Integer> ids, String username) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> deleted = new ArrayList<>();
+        String sql = "DELETE FROM study_group WHERE id = ANY (?) AND owner_username = ? RETURNING id";
+        try (Connection connection = DBManager.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+            stmt.setString(2, username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    deleted.add(rs.getInt("id"));
+                }
+            }
+        } catch (SQLException e) {
+            Logging.log(Logging.makeMessage("SQL error during work " + e.getMessage(), e.getStackTrace()));
+        }
+        return deleted;
+    }
+
     public static boolean queryById(int id, String username, String query) {
         try (Connection connection = DBManager.getConnection();
              PreparedStatement stmt = connection.prepareStatement(query)) {
@@ -100,18 +180,23 @@ public class DBManager {
 
     /**
      * Inserts a new StudyGroup into the database.
+     *
+     * @return the stored row, with the id and creation date the database assigned, or null if the insert failed
      */
-    public static void insertStudyGroup(StudyGroup studyGroup) {
+    public static StudyGroup insertStudyGroup(StudyGroup studyGroup) {
         String sql = "INSERT INTO study_group (name, x, y, creation_date, students_count, form_of_education, " +
                 "semester, admin_name, admin_birthday, admin_height, admin_passport_id, owner_username) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING *";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             prepareStudyGroupStatement(studyGroup, stmt);
-            stmt.executeUpdate();
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? readStudyGroup(rs) : null;
+            }
         } catch (SQLException e) {
             System.out.println("Error inserting study group: " + e.getMessage());
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+            return null;
         }
     }
 
@@ -128,8 +213,6 @@ public class DBManager {
             return true;
         } catch (Exception e) {
             System.out.println("Error checking user existence: " + e.getMessage());
-            DistributionOfTheOutputStream.println("User with that username already exists: " + username  +
-                    " or exist different problem. Pleas try another username or password.");
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
             return false;
         }
@@ -158,21 +241,25 @@ public class DBManager {
 
     /**
      * Updates an existing study group by ID.
+     *
+     * @return the stored row after the update, or null if no row of this user had the id
      */
-    public static Boolean updateStudyGroup(StudyGroup studyGroup, String username) {
+    public static StudyGroup updateStudyGroup(StudyGroup studyGroup, String username) {
         String sql = "UPDATE study_group SET name = ?, x = ?, y = ?, creation_date = ?, students_count = ?, " +
                 "form_of_education = ?, semester = ?, admin_name = ?, admin_birthday = ?, admin_height = ?, " +
-                "admin_passport_id = ?, owner_username = ? WHERE id = ? AND owner_username = ?";
+                "admin_passport_id = ?, owner_username = ? WHERE id = ? AND owner_username = ? RETURNING *";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             prepareStudyGroupStatement(studyGroup, stmt);
             stmt.setInt(13, studyGroup.getId());
             stmt.setString(14, username);
-            return stmt.executeUpdate() > 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? readStudyGroup(rs) : null;
+            }
         } catch (Exception e) {
             System.out.println("Error updating study group: " + e.getMessage());
             Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
-            return false;
+            return null;
         }
     }
 
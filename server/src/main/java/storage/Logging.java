@@ -1,7 +1,5 @@
 package storage;
 
-import io.DistributionOfTheOutputStream;
-
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
@@ -34,7 +32,7 @@ public class Logging {
                 new FileOutputStream(fileName), StandardCharsets.UTF_8)) {
             writer.write("Logging Initialized\n");
         } catch (Exception e) {
-            DistributionOfTheOutputStream.println("Logging error");
+            System.out.println("Logging error");
         }
     }
 
@@ -60,7 +58,7 @@ public class Logging {
             writer.write(message);
             writer.write(System.lineSeparator());
         } catch (Exception e) {
-            DistributionOfTheOutputStream.println("Logging error");
+            System.out.println("Logging error");
         }
     }
 
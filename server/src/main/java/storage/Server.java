@@ -1,30 +1,197 @@
 package storage;
 
 import io.ClientRequest;
+import io.DatagramReactor;
 import io.PreparingOfOutputStream;
+import io.ResponseCache;
+import io.ResponseFrame;
+import io.TcpReactor;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
-import java.nio.charset.StandardCharsets;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class Server {
 
-    private static final int SERVER_PORT = 6601;
-    private static final int TREADS_QUANTITY = 5;
+    private static final String PROPS_FILE = "server.properties";
+    private static final Properties props = loadProperties();
+
+    private static final int SERVER_PORT = intSetting("server.port", 6601);
+    private static final int CHANNELS = Math.max(1, intSetting("server.channels", 1));
+    private static final int TCP_PORT = intSetting("server.tcpPort", 6602);
+    private static final int TREADS_QUANTITY = intSetting("server.threads", 5);
+    private static final int RECEIVE_BUFFER_SIZE = 4096;
+    private static final int RECEIVE_BUFFERS = intSetting("server.receiveBuffers", 512);
+    private static final String EXECUTOR_MODE = setting("server.executor", "fixed");
+    private static final int MAX_IN_FLIGHT = intSetting("server.maxInFlight", 256);
+    private static final int REQUEST_TIMEOUT = intSetting("server.requestTimeout", 5000);
+    private static final int MAX_REQUEST_BYTES = intSetting("server.maxRequestBytes", 1 << 20);
+    private static final int REQUEST_ASSEMBLY_TIMEOUT = intSetting("server.requestAssemblyTimeout", 5000);
+    private static final int METRICS_INTERVAL = intSetting("server.metricsInterval", 60);
+    private static final int SUBSCRIPTION_TTL = intSetting("server.subscriptionTtl", 90);
+    private static final int CHANGE_LOG_SIZE = intSetting("server.changeLogSize", 256);
+    private static final int MAX_PAGE_SIZE = intSetting("server.maxPageSize", 1000);
+    private static final int RESYNC_INTERVAL = intSetting("server.resyncInterval", 30);
+    private static final int CHUNK_SIZE = ResponseFrame.CHUNK_SIZE;
+    private static final int COMPRESS_THRESHOLD = intSetting("server.compressThreshold", 1500);
+    private static final ResponseCache recentResponses = new ResponseCache(
+            intSetting("server.retransmitWindow", 10), intSetting("server.retransmitCapacity", 1024));
 
     public static int getServerPort() {
         return SERVER_PORT;
     }
 
+    /**
+     * @return the port of the TCP listener for bulk transfers, {@code 0} if it is disabled
+     */
+    public static int getTcpPort() {
+        return TCP_PORT;
+    }
+
+    public static int getChannels() {
+        return CHANNELS;
+    }
+
     public static int getTreadsQuantity() {
         return TREADS_QUANTITY;
     }
 
+    public static String getExecutorMode() {
+        return EXECUTOR_MODE;
+    }
+
+    public static int getMaxInFlight() {
+        return MAX_IN_FLIGHT;
+    }
+
+    /**
+     * @return milliseconds after receipt when a request is no longer worth answering
+     */
+    public static int getRequestTimeout() {
+        return REQUEST_TIMEOUT;
+    }
+
+    /**
+     * @return the bound on unfinished multi-datagram request bytes held per client
+     */
+    public static int getMaxRequestBytes() {
+        return MAX_REQUEST_BYTES;
+    }
+
+    /**
+     * @return milliseconds a multi-datagram request may stay incomplete
+     */
+    public static int getRequestAssemblyTimeout() {
+        return REQUEST_ASSEMBLY_TIMEOUT;
+    }
+
+    /**
+     * @return seconds a change subscription lasts without being renewed
+     */
+    public static int getSubscriptionTtl() {
+        return SUBSCRIPTION_TTL;
+    }
+
+    /**
+     * @return how many collection versions keep their changed ids for delta requests
+     */
+    public static int getChangeLogSize() {
+        return CHANGE_LOG_SIZE;
+    }
+
+    /**
+     * @return the largest page SHOW_PAGE returns, whatever the client asks for
+     */
+    public static int getMaxPageSize() {
+        return MAX_PAGE_SIZE;
+    }
+
+    /**
+     * @return seconds that must pass between two RESYNC reloads
+     */
+    public static int getResyncInterval() {
+        return RESYNC_INTERVAL;
+    }
+
+    public static int getMetricsInterval() {
+        return METRICS_INTERVAL;
+    }
+
+    /**
+     * Creates the executor that runs requests, as selected by {@code server.executor}.
+     * <p>
+     * {@code virtual} starts one virtual thread per request. The module targets Java 17,
+     * so the factory is looked up at runtime and the fixed pool is used when the JVM
+     * does not provide virtual threads.
+     * </p>
+     * <p>
+     * The fixed pool queues at most {@code server.maxInFlight} tasks and rejects the rest,
+     * so a spike is answered with "busy" instead of piling up unbounded work.
+     * </p>
+     *
+     * @return the request executor
+     */
+    public static ExecutorService createExecutor() {
+        if ("virtual".equalsIgnoreCase(EXECUTOR_MODE)) {
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Virtual threads are not available on this JVM, using a fixed pool");
+            }
+        }
+        return new ThreadPoolExecutor(TREADS_QUANTITY, TREADS_QUANTITY, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_IN_FLIGHT));
+    }
+
+    public static int getReceiveBufferSize() {
+        return RECEIVE_BUFFER_SIZE;
+    }
+
+    public static int getReceiveBuffers() {
+        return RECEIVE_BUFFERS;
+    }
+
+    private static Properties loadProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = Server.class.getClassLoader().getResourceAsStream(PROPS_FILE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            Logging.log(Logging.makeMessage(e.getMessage(), e.getStackTrace()));
+        }
+        return properties;
+    }
+
+    /**
+     * Reads a setting, letting a {@code -Dkey=value} system property override the properties file.
+     */
+    private static String setting(String key, String defaultValue) {
+        return System.getProperty(key, props.getProperty(key, defaultValue)).trim();
+    }
+
+    private static int intSetting(String key, int defaultValue) {
+        return Integer.parseInt(setting(key, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Receives one datagram into a buffer the returned request takes ownership of.
+     *
+     * @param server the channel to read from
+     * @param buffer an empty buffer, leased by the caller
+     * @return the request, or {@code null} if no datagram was waiting
+     */
     public static ClientRequest readFromClient(DatagramChannel server, ByteBuffer buffer) throws IOException {
         buffer.clear();
         SocketAddress clientAddress = server.receive(buffer);
@@ -34,32 +201,136 @@ public class Server {
         }
 
         buffer.flip();
-        ByteArrayInputStream byteIn = new ByteArrayInputStream(buffer.array(), 0, buffer.limit());
-        ObjectInputStream objectIn = new ObjectInputStream(byteIn);
-
-        return new ClientRequest(clientAddress, objectIn);
+        return new ClientRequest(clientAddress, buffer);
     }
 
-    public static void sendResponse(DatagramChannel server, SocketAddress address) throws IOException {
-        String response = PreparingOfOutputStream.getOutMessage();
-        byte[] data = response.getBytes(StandardCharsets.UTF_8);
+    /**
+     * Sends a response as numbered chunks. Responses larger than {@code server.compressThreshold}
+     * bytes are deflated first and flagged with {@link ResponseFrame#FLAG_COMPRESSED}.
+     * Responses of more than one chunk are kept for {@code server.retransmitWindow} seconds
+     * so lost chunks can be requested again.
+     * An empty response is still sent as one empty chunk so the client does not time out.
+     *
+     * @param requestId the id written in every chunk header; the client's own id for
+     *                  requests it sent in pieces
+     */
+    public static void sendResponse(DatagramReactor server, SocketAddress address, int requestId,
+                                    PreparingOfOutputStream response) throws IOException {
+        byte[] data = response.array();
+        int size = response.size();
+        byte flags = 0;
+
+        byte[] compressed = compress(response);
+        if (compressed != null) {
+            data = compressed;
+            size = compressed.length;
+            flags |= ResponseFrame.FLAG_COMPRESSED;
+        }
 
-        final int CHUNK_SIZE = 1000;
-        int requestId = new Random().nextInt();
-        int totalChunks = (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int totalChunks = Math.max(1, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        if (totalChunks > 1) {
+            recentResponses.put(requestId, address, Arrays.copyOf(data, size), flags);
+        }
 
         for (int seq = 0; seq < totalChunks; seq++) {
-            int offset = seq * CHUNK_SIZE;
-            int len    = Math.min(CHUNK_SIZE, data.length - offset);
+            sendChunk(server, address, requestId, seq, totalChunks, flags, data, size);
+        }
+    }
+
+    /**
+     * Sends a response as one TCP frame, compressed under the same rule as datagram responses.
+     *
+     * @param connection the connection the request came in on
+     * @param response   the response to send
+     */
+    public static void sendResponse(TcpReactor.Connection connection, PreparingOfOutputStream response) {
+        byte[] compressed = compress(response);
+        if (compressed != null) {
+            connection.send(ResponseFrame.FLAG_COMPRESSED, compressed, compressed.length);
+        } else {
+            connection.send((byte) 0, response.array(), response.size());
+        }
+    }
+
+    /**
+     * @return the deflated response, or {@code null} if it is below the threshold or does not shrink
+     */
+    private static byte[] compress(PreparingOfOutputStream response) {
+        if (COMPRESS_THRESHOLD <= 0 || response.size() <= COMPRESS_THRESHOLD) {
+            return null;
+        }
+        return ResponseFrame.compress(response.array(), response.size());
+    }
+
+    /**
+     * Tells a client its request was not accepted: one empty chunk flagged
+     * {@link ResponseFrame#FLAG_BUSY}.
+     *
+     * @param server    the reactor to send through
+     * @param address   the client whose request was refused
+     * @param requestId the id of the refused request
+     */
+    public static void sendBusy(DatagramReactor server, SocketAddress address, int requestId) throws IOException {
+        sendChunk(server, address, requestId, 0, 1,
+                ResponseFrame.FLAG_BUSY, new byte[0], 0);
+    }
+
+    /**
+     * Sends a change notification as one chunk flagged {@link ResponseFrame#FLAG_NOTIFY}.
+     *
+     * @param server  the reactor the subscriber is reached through
+     * @param address the subscriber
+     * @param payload the notification text, at most one chunk long
+     */
+    public static void sendNotification(DatagramReactor server, SocketAddress address, byte[] payload) throws IOException {
+        sendChunk(server, address, 0, 0, 1, ResponseFrame.FLAG_NOTIFY, payload, payload.length);
+    }
+
+    /**
+     * Sends again the chunks a client reported as missing, if the response is still cached.
+     *
+     * @param server    the reactor to send through
+     * @param address   the client that sent the NACK
+     * @param requestId the id of the incomplete response
+     * @param missing   the sequence numbers to resend
+     */
+    public static void resendChunks(DatagramReactor server, SocketAddress address,
+                                    int requestId, int[] missing) throws IOException {
+        ResponseCache.Cached cached = recentResponses.get(requestId, address);
+        if (cached == null) {
+            return;
+        }
+        byte[] data = cached.data();
+        int totalChunks = Math.max(1, (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int seq : missing) {
+            if (seq >= 0 && seq < totalChunks) {
+                sendChunk(server, address, requestId, seq, totalChunks, cached.flags(), data, data.length);
+            }
+        }
+    }
+
+    /**
+     * Writes one chunk through a direct send buffer leased from the reactor and returned
+     * once the datagram is handed over. The reactor copies the datagram only when the
+     * socket is full and it has to be queued.
+     */
+    private static void sendChunk(DatagramReactor server, SocketAddress address, int requestId,
+                                  int seq, int totalChunks, byte flags, byte[] data, int size) throws IOException {
+        int offset = seq * CHUNK_SIZE;
+        int len    = Math.min(CHUNK_SIZE, size - offset);
 
-            ByteBuffer buf = ByteBuffer.allocate(4 + 4 + 4 + len);
+        ByteBuffer buf = server.acquireSendBuffer();
+        try {
             buf.putInt(requestId);
             buf.putInt(seq);
             buf.putInt(totalChunks);
+            buf.put(flags);
             buf.put(data, offset, len);
             buf.flip();
 
             server.send(buf, address);
+        } finally {
+            server.releaseSendBuffer(buf);
         }
     }
 
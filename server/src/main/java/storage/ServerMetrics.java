@@ -0,0 +1,120 @@
+package storage;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide request counters.
+ * <p>
+ * Latency is measured from the moment a datagram is taken off the socket until its
+ * response has been handed to the channel, so it includes queueing and thread start-up.
+ * Running the server once per {@code server.executor} mode under the same load and
+ * comparing the periodic reports gives the comparison between executors.
+ * </p>
+ */
+public class ServerMetrics {
+
+    private static final LongAdder completed = new LongAdder();
+    private static final LongAdder rejected = new LongAdder();
+    private static final LongAdder expired = new LongAdder();
+    private static final AtomicInteger queued = new AtomicInteger();
+    private static final AtomicInteger peakQueued = new AtomicInteger();
+    private static final LongAdder totalNanos = new LongAdder();
+    private static final AtomicLong maxNanos = new AtomicLong();
+    private static final List<LongAdder> channels = new CopyOnWriteArrayList<>();
+
+    private ServerMetrics() {}
+
+    /**
+     * Records a request that was answered.
+     *
+     * @param nanos time from receipt to response
+     */
+    public static void completed(long nanos) {
+        completed.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Registers a receiving channel.
+     *
+     * @return the counter the channel's reactor increments for every datagram it reads
+     */
+    public static LongAdder channelCounter() {
+        LongAdder counter = new LongAdder();
+        channels.add(counter);
+        return counter;
+    }
+
+    /**
+     * Records a request that was refused with "busy" because too many were in flight.
+     */
+    public static void rejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Records a request that waited past its deadline and was dropped without running.
+     */
+    public static void expired() {
+        expired.increment();
+    }
+
+    /**
+     * Records a request handed to the executor.
+     */
+    public static void enqueued() {
+        peakQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Records a request taken off the executor's queue.
+     */
+    public static void dequeued() {
+        queued.decrementAndGet();
+    }
+
+    /**
+     * Builds a one-line summary of the counters collected since the previous report
+     * and resets the latency and per-channel figures.
+     *
+     * @return the summary line
+     */
+    public static String report() {
+        long count = completed.sumThenReset();
+        long nanos = totalNanos.sumThenReset();
+        long max = maxNanos.getAndSet(0);
+        int peak = peakQueued.getAndSet(queued.get());
+        StringBuilder received = new StringBuilder();
+        for (LongAdder channel : channels) {
+            received.append(received.length() == 0 ? "" : ",").append(channel.sumThenReset());
+        }
+        return String.format("[metrics] executor=%s requests=%d queued=%d peakQueued=%d rejected=%d expired=%d"
+                        + " avg=%.3fms max=%.3fms received=[%s]",
+                Server.getExecutorMode(), count, queued.get(), peak, rejected.sum(), expired.sum(),
+                count == 0 ? 0.0 : nanos / 1e6 / count, max / 1e6, received);
+    }
+
+    /**
+     * Prints {@link #report()} every {@code server.metricsInterval} seconds on a daemon thread.
+     */
+    public static void startReporting() {
+        int interval = Server.getMetricsInterval();
+        if (interval <= 0) {
+            return;
+        }
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> System.out.println(report()), interval, interval, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,247 @@
+package collection;
+
+import org.junit.jupiter.api.Test;
+import storage.Server;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Delta, page and snapshot reads of {@link Collection}.
+ * <p>
+ * The collection is a process-wide singleton, so every test works on its own range of ids
+ * and only compares versions relative to the version it started at.
+ * </p>
+ */
+class CollectionTest {
+
+    private final Collection collection = Collection.getInstance();
+
+    private static StudyGroup group(int id, String name) {
+        return new StudyGroup(id, name, new Coordinates(1L, 1f), LocalDateTime.of(2024, 1, 1, 0, 0), 10,
+                FormOfEducation.FULL_TIME_EDUCATION, Semester.THIRD,
+                new Person("admin", LocalDateTime.of(2000, 1, 1, 0, 0), 170.0, "P" + id), "owner");
+    }
+
+    private static List<Integer> ids(List<StudyGroup> groups) {
+        return groups.stream().map(StudyGroup::getId).toList();
+    }
+
+    @Test
+    void changesSinceTheCurrentVersionAreEmpty() {
+        collection.upsert(group(100_001, "a"));
+        long version = collection.getVersion();
+
+        Collection.Changes changes = collection.changesSince(version);
+
+        assertFalse(changes.snapshot());
+        assertEquals(version, changes.version());
+        assertTrue(changes.upserts().isEmpty());
+        assertTrue(changes.deleted().isEmpty());
+    }
+
+    @Test
+    void changesSinceListTheLatestUpsertsAndTheDeletions() {
+        collection.upsert(group(110_001, "kept"));
+        collection.upsert(group(110_002, "removed"));
+        long since = collection.getVersion();
+
+        collection.upsert(group(110_003, "added"));
+        collection.upsert(group(110_001, "renamed"));
+        collection.removeIds(List.of(110_002));
+        collection.upsert(group(110_004, "added then removed"));
+        collection.removeIds(List.of(110_004));
+
+        Collection.Changes changes = collection.changesSince(since);
+
+        assertFalse(changes.snapshot());
+        assertEquals(since + 5, changes.version());
+        assertEquals(List.of(110_001, 110_003), ids(changes.upserts()));
+        assertEquals("renamed", changes.upserts().get(0).getName());
+        assertEquals(Set.of(110_002, 110_004), changes.deleted());
+    }
+
+    @Test
+    void changesSinceLeaveOutChangesMadeBeforeTheVersion() {
+        collection.upsert(group(120_001, "before"));
+        long since = collection.getVersion();
+        collection.upsert(group(120_002, "after"));
+
+        Collection.Changes changes = collection.changesSince(since);
+
+        assertEquals(List.of(120_002), ids(changes.upserts()));
+        assertTrue(changes.deleted().isEmpty());
+    }
+
+    @Test
+    void removingUnknownIdsIsNotAChange() {
+        long version = collection.getVersion();
+
+        collection.removeIds(List.of(-1, -2));
+
+        assertEquals(version, collection.getVersion());
+    }
+
+    @Test
+    void changesSinceFallBackToASnapshotOnceTheLogNoLongerReachesTheVersion() {
+        collection.upsert(group(130_000, "first"));
+        long since = collection.getVersion();
+        for (int i = 1; i <= Server.getChangeLogSize() + 1; i++) {
+            collection.upsert(group(130_000 + i, "g"));
+        }
+
+        Collection.Changes changes = collection.changesSince(since);
+
+        assertTrue(changes.snapshot());
+        assertEquals(collection.getVersion(), changes.version());
+        assertEquals(ids(collection.snapshot().groups()), ids(changes.upserts()));
+        assertTrue(changes.deleted().isEmpty());
+    }
+
+    @Test
+    void changesSinceTheOldestLoggedVersionAreStillADelta() {
+        collection.upsert(group(135_000, "first"));
+        long since = collection.getVersion();
+        for (int i = 1; i <= Server.getChangeLogSize(); i++) {
+            collection.upsert(group(135_000 + i, "g"));
+        }
+
+        Collection.Changes changes = collection.changesSince(since);
+
+        assertFalse(changes.snapshot());
+        assertEquals(Server.getChangeLogSize(), changes.upserts().size());
+    }
+
+    @Test
+    void changesSinceUnknownVersionsFallBackToASnapshot() {
+        collection.upsert(group(140_001, "a"));
+        long version = collection.getVersion();
+
+        for (long since : new long[]{-1, version + 1, Long.MAX_VALUE}) {
+            Collection.Changes changes = collection.changesSince(since);
+            assertTrue(changes.snapshot(), "version " + since);
+            assertEquals(version, changes.version());
+            assertTrue(ids(changes.upserts()).contains(140_001));
+        }
+    }
+
+    @Test
+    void snapshotIsSharedUntilTheNextChange() {
+        collection.upsert(group(150_001, "a"));
+
+        Collection.Snapshot first = collection.snapshot();
+        assertSame(first, collection.snapshot());
+        assertEquals(collection.getVersion(), first.version());
+
+        collection.upsert(group(150_002, "b"));
+        Collection.Snapshot second = collection.snapshot();
+
+        assertNotSame(first, second);
+        assertEquals(first.version() + 1, second.version());
+        assertFalse(ids(first.groups()).contains(150_002));
+        assertTrue(ids(second.groups()).contains(150_002));
+    }
+
+    @Test
+    void snapshotIsImmutableAndInIdOrder() {
+        collection.upsert(group(160_002, "b"));
+        collection.upsert(group(160_001, "a"));
+
+        List<StudyGroup> groups = collection.snapshot().groups();
+
+        assertThrows(UnsupportedOperationException.class, () -> groups.add(group(160_003, "c")));
+        List<Integer> ids = ids(groups);
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) < ids.get(i));
+        }
+    }
+
+    @Test
+    void snapshotSeesGroupsAddedWithoutAVersion() {
+        collection.snapshot();
+
+        collection.addElement(group(170_001, "loaded"));
+
+        assertTrue(ids(collection.snapshot().groups()).contains(170_001));
+    }
+
+    @Test
+    void snapshotsTakenDuringWritesMatchTheirVersion() throws InterruptedException {
+        int id = 180_001;
+        long start = collection.getVersion();
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 5000; i++) {
+                collection.upsert(group(id, "w"));
+                collection.removeIds(List.of(id));
+            }
+            done.set(true);
+        });
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                while (!done.get() && failure.get() == null) {
+                    Collection.Snapshot snapshot = collection.snapshot();
+                    boolean present = ids(snapshot.groups()).contains(id);
+                    boolean expected = snapshot.version() > start && (snapshot.version() - start) % 2 == 1;
+                    if (present != expected) {
+                        failure.set("version " + snapshot.version() + " has the group: " + present);
+                    }
+                }
+            });
+        }
+
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(start + 10_000, collection.snapshot().version());
+    }
+
+    @Test
+    void pagesWalkTheGroupsInIdOrder() {
+        for (int id = 900_001; id <= 900_007; id++) {
+            collection.upsert(group(id, "p"));
+        }
+        long version = collection.getVersion();
+
+        Collection.Page first = collection.page(900_000, 3);
+        Collection.Page second = collection.page(900_003, 3);
+        Collection.Page last = collection.page(900_006, 3);
+
+        assertEquals(List.of(900_001, 900_002, 900_003), ids(first.groups()));
+        assertTrue(first.more());
+        assertEquals(List.of(900_004, 900_005, 900_006), ids(second.groups()));
+        assertEquals(List.of(900_007), ids(last.groups()));
+        assertFalse(last.more());
+        assertEquals(version, last.version());
+    }
+
+    @Test
+    void pageAfterTheLastIdIsEmpty() {
+        collection.upsert(group(190_001, "a"));
+
+        Collection.Page page = collection.page(Integer.MAX_VALUE, 10);
+
+        assertTrue(page.groups().isEmpty());
+        assertFalse(page.more());
+    }
+}
@@ -0,0 +1,277 @@
+package io;
+
+import collection.Coordinates;
+import collection.FormOfEducation;
+import collection.GroupFilter;
+import collection.Person;
+import collection.Semester;
+import collection.StudyGroup;
+import commands.Commands;
+import org.junit.jupiter.api.Test;
+import storage.PageRequest;
+import storage.Request;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips through {@link BinaryCodec} and the errors it reports for malformed frames.
+ */
+class BinaryCodecTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000);
+    private static final LocalDateTime BIRTHDAY = LocalDateTime.of(2001, 9, 11, 0, 0);
+
+    private static StudyGroup group(int id) {
+        return new StudyGroup(id, "group " + id, new Coordinates(-7L, 2.5f), CREATED, 25,
+                FormOfEducation.EVENING_CLASSES, Semester.FIFTH,
+                new Person("Admin Имя", BIRTHDAY, 181.5, "AB123"), "owner");
+    }
+
+    private static void assertSameGroup(StudyGroup expected, StudyGroup actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getCoordinates(), actual.getCoordinates());
+        assertEquals(expected.getCreationDate(), actual.getCreationDate());
+        assertEquals(expected.getStudentCount(), actual.getStudentCount());
+        assertEquals(expected.getFormOfEducation(), actual.getFormOfEducation());
+        assertEquals(expected.getSemester(), actual.getSemester());
+        assertEquals(expected.getGroupAdmin(), actual.getGroupAdmin());
+        assertEquals(expected.getOwner(), actual.getOwner());
+    }
+
+    private static Request<?> roundTrip(Request<?> request) {
+        return BinaryCodec.decodeRequest(ByteBuffer.wrap(BinaryCodec.encodeRequest(request)));
+    }
+
+    @Test
+    void requestKeepsCommandAndCredentials() {
+        Request<?> decoded = roundTrip(new Request<>(Commands.INFO, null, "user", "пароль"));
+
+        assertEquals(Commands.INFO, decoded.command());
+        assertEquals("user", decoded.username());
+        assertEquals("пароль", decoded.password());
+        assertNull(decoded.object());
+    }
+
+    @Test
+    void scalarPayloadsRoundTrip() {
+        for (Object payload : List.of(0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, 42L,
+                "", "text with ünïcode", new PageRequest(Integer.MAX_VALUE, -3))) {
+            assertEquals(payload, roundTrip(new Request<>(Commands.GET_BY_ID, payload)).object());
+        }
+    }
+
+    @Test
+    void studyGroupRoundTrips() {
+        StudyGroup decoded = (StudyGroup) roundTrip(new Request<>(Commands.ADD, group(7))).object();
+
+        assertSameGroup(group(7), decoded);
+    }
+
+    @Test
+    void studyGroupWithoutOptionalFieldsRoundTrips() {
+        StudyGroup sparse = new StudyGroup(null, "sparse", new Coordinates(null, null), null, null,
+                null, null, new Person("admin", null, null, null), null);
+
+        StudyGroup decoded = (StudyGroup) roundTrip(new Request<>(Commands.ADD, sparse)).object();
+
+        assertSameGroup(sparse, decoded);
+    }
+
+    @Test
+    void filterRoundTrips() {
+        GroupFilter filter = new GroupFilter("Name", 3, 40, -1.5, 10, Double.NEGATIVE_INFINITY, 7.25,
+                List.of(FormOfEducation.DISTANCE_EDUCATION), List.of(Semester.THIRD, Semester.EIGHTH), "Admin");
+
+        assertEquals(filter, roundTrip(new Request<>(Commands.QUERY, filter)).object());
+    }
+
+    @Test
+    void batchItemsKeepTheirCommandsAndPayloads() {
+        List<Request<?>> batch = List.of(new Request<>(Commands.REMOVE_BY_ID, 5),
+                new Request<>(Commands.ADD, group(9)));
+
+        List<?> decoded = (List<?>) roundTrip(new Request<>(Commands.BATCH, batch, "u", "p")).object();
+
+        assertEquals(2, decoded.size());
+        Request<?> first = (Request<?>) decoded.get(0);
+        Request<?> second = (Request<?>) decoded.get(1);
+        assertEquals(Commands.REMOVE_BY_ID, first.command());
+        assertEquals(5, first.object());
+        assertEquals(Commands.ADD, second.command());
+        assertSameGroup(group(9), (StudyGroup) second.object());
+    }
+
+    @Test
+    void groupBlockRoundTrips() {
+        List<StudyGroup> groups = List.of(group(1), group(2), group(300));
+
+        List<StudyGroup> decoded = BinaryCodec.decodeGroups(ByteBuffer.wrap(BinaryCodec.encodeGroups(groups)));
+
+        assertEquals(groups.size(), decoded.size());
+        for (int i = 0; i < groups.size(); i++) {
+            assertSameGroup(groups.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void nackRoundTrips() {
+        BinaryCodec.Nack nack = BinaryCodec.decodeNack(ByteBuffer.wrap(BinaryCodec.encodeNack(-17, new int[]{0, 3, 200})));
+
+        assertEquals(-17, nack.requestId());
+        assertArrayEquals(new int[]{0, 3, 200}, nack.missing());
+    }
+
+    @Test
+    void requestChunkCarriesHeaderAndItsSliceOfTheData() {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        BinaryCodec.RequestChunk chunk = BinaryCodec.decodeRequestChunk(
+                ByteBuffer.wrap(BinaryCodec.encodeRequestChunk(12, 1, 3, 4500, data, 40, 30)));
+
+        assertEquals(12, chunk.requestId());
+        assertEquals(1, chunk.seq());
+        assertEquals(3, chunk.total());
+        assertEquals(4500, chunk.budget());
+        byte[] payload = new byte[chunk.payload().remaining()];
+        chunk.payload().get(payload);
+        assertArrayEquals(Arrays.copyOfRange(data, 40, 70), payload);
+    }
+
+    @Test
+    void frameTypeTellsBinaryFramesFromSerialization() {
+        assertEquals(BinaryCodec.TYPE_NACK, BinaryCodec.frameType(ByteBuffer.wrap(BinaryCodec.encodeNack(1, new int[0]))));
+        assertEquals(-1, BinaryCodec.frameType(ByteBuffer.wrap(new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5})));
+        assertEquals(-1, BinaryCodec.frameType(ByteBuffer.wrap(new byte[]{BinaryCodec.MAGIC, 1})));
+        assertFalse(BinaryCodec.isBinary(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void rejectsForeignMagicVersionAndType() {
+        byte[] frame = BinaryCodec.encodeRequest(new Request<>(Commands.INFO, null));
+
+        byte[] magic = frame.clone();
+        magic[0] = (byte) 0xAC;
+        byte[] version = frame.clone();
+        version[1] = BinaryCodec.VERSION + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeRequest(ByteBuffer.wrap(magic)));
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeRequest(ByteBuffer.wrap(version)));
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeNack(ByteBuffer.wrap(frame)));
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeGroups(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    void rejectsChunksOutsideTheirOwnTotal() {
+        byte[] data = new byte[4];
+
+        for (int[] header : new int[][]{{0, 0}, {1, 1}, {-1, 2}, {0, -5}}) {
+            byte[] frame = BinaryCodec.encodeRequestChunk(1, header[0], header[1], 100, data, 0, data.length);
+            assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeRequestChunk(ByteBuffer.wrap(frame)));
+        }
+    }
+
+    @Test
+    void rejectsUnknownCommandAndPayloadTag() {
+        BinaryCodec.Writer unknownCommand = header(BinaryCodec.TYPE_REQUEST);
+        unknownCommand.writeString("NO_SUCH_COMMAND");
+        BinaryCodec.Writer unknownTag = header(BinaryCodec.TYPE_REQUEST);
+        unknownTag.writeString("INFO");
+        unknownTag.writeString(null);
+        unknownTag.writeString(null);
+        unknownTag.writeVarInt(99);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeRequest(ByteBuffer.wrap(unknownCommand.toByteArray())));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeRequest(ByteBuffer.wrap(unknownTag.toByteArray())));
+    }
+
+    @Test
+    void rejectsLengthsAndCountsBeyondTheFrame() {
+        BinaryCodec.Writer longString = header(BinaryCodec.TYPE_REQUEST);
+        longString.writeVarInt(1000);
+        longString.writeBytes(new byte[10], 0, 10);
+        BinaryCodec.Writer negativeString = header(BinaryCodec.TYPE_REQUEST);
+        negativeString.writeVarInt(0xFFFFFFFFL);
+        BinaryCodec.Writer nack = header(BinaryCodec.TYPE_NACK);
+        nack.writeInt(1);
+        nack.writeVarInt(1_000_000);
+        BinaryCodec.Writer groups = header(BinaryCodec.TYPE_GROUPS);
+        groups.writeVarInt(Integer.MAX_VALUE);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeRequest(ByteBuffer.wrap(longString.toByteArray())));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeRequest(ByteBuffer.wrap(negativeString.toByteArray())));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeNack(ByteBuffer.wrap(nack.toByteArray())));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeGroups(ByteBuffer.wrap(groups.toByteArray())));
+    }
+
+    @Test
+    void rejectsEnumOrdinalsOutOfRange() {
+        assertEquals(FormOfEducation.EVENING_CLASSES,
+                BinaryCodec.decodeGroups(ByteBuffer.wrap(bareGroup(FormOfEducation.values().length))).get(0)
+                        .getFormOfEducation());
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeGroups(ByteBuffer.wrap(bareGroup(FormOfEducation.values().length + 1))));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.decodeGroups(ByteBuffer.wrap(bareGroup(-1L))));
+    }
+
+    @Test
+    void truncatedFramesFailWithoutOtherErrors() {
+        List<Request<?>> batch = List.of(new Request<>(Commands.ADD, group(3)));
+        byte[] frame = BinaryCodec.encodeRequest(new Request<>(Commands.BATCH, batch, "user", "password"));
+
+        for (int length = 0; length < frame.length; length++) {
+            ByteBuffer truncated = ByteBuffer.wrap(frame, 0, length);
+            try {
+                BinaryCodec.decodeRequest(truncated);
+            } catch (IllegalArgumentException | BufferUnderflowException expected) {
+                continue;
+            }
+            throw new AssertionError("A frame cut to " + length + " of " + frame.length + " bytes was accepted");
+        }
+        assertTrue(roundTrip(new Request<>(Commands.BATCH, batch, "user", "password")).object() instanceof List<?>);
+    }
+
+    private static BinaryCodec.Writer header(byte type) {
+        BinaryCodec.Writer out = new BinaryCodec.Writer();
+        out.writeByte(BinaryCodec.MAGIC);
+        out.writeByte(BinaryCodec.VERSION);
+        out.writeByte(type);
+        return out;
+    }
+
+    /**
+     * Builds a block of one group that has only a name and the given form of education code,
+     * which is the ordinal plus one.
+     */
+    private static byte[] bareGroup(long formCode) {
+        BinaryCodec.Writer out = header(BinaryCodec.TYPE_GROUPS);
+        out.writeVarInt(1);
+        out.writeVarInt(0);
+        out.writeString("bare");
+        out.writeVarInt(formCode);
+        out.writeVarInt(0);
+        out.writeString(null);
+        return out.toByteArray();
+    }
+}
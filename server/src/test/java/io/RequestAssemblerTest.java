@@ -0,0 +1,178 @@
+package io;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Assembly of multi-piece requests by {@link RequestAssembler} and the bounds it keeps per client.
+ */
+class RequestAssemblerTest {
+
+    private static final SocketAddress CLIENT = new InetSocketAddress("127.0.0.1", 40001);
+    private static final SocketAddress OTHER_CLIENT = new InetSocketAddress("127.0.0.1", 40002);
+    private static final int PIECE = BinaryCodec.REQUEST_CHUNK_SIZE;
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    /**
+     * Feeds one piece of {@code data} cut the way the client cuts requests.
+     */
+    private static byte[] send(RequestAssembler assembler, SocketAddress address, int requestId,
+                               int seq, byte[] data) {
+        int total = Math.max(1, (data.length + PIECE - 1) / PIECE);
+        int offset = seq * PIECE;
+        int length = Math.min(PIECE, data.length - offset);
+        return send(assembler, address, requestId, seq, total, data, offset, length);
+    }
+
+    private static byte[] send(RequestAssembler assembler, SocketAddress address, int requestId,
+                               int seq, int total, byte[] data, int offset, int length) {
+        byte[] frame = BinaryCodec.encodeRequestChunk(requestId, seq, total, 1000, data, offset, length);
+        return assembler.accept(address, BinaryCodec.decodeRequestChunk(ByteBuffer.wrap(frame)));
+    }
+
+    @Test
+    void singlePiecePassesStraightThrough() {
+        RequestAssembler assembler = new RequestAssembler(10_000, 5000);
+        byte[] request = data(300);
+
+        assertArrayEquals(request, send(assembler, CLIENT, 1, 0, request));
+    }
+
+    @Test
+    void piecesAssembleInAnyOrder() {
+        RequestAssembler assembler = new RequestAssembler(3 * PIECE, 5000);
+        byte[] request = data(2 * PIECE + 17);
+
+        assertNull(send(assembler, CLIENT, 1, 2, request));
+        assertNull(send(assembler, CLIENT, 1, 0, request));
+        assertNull(send(assembler, CLIENT, 1, 0, request));
+        assertArrayEquals(request, send(assembler, CLIENT, 1, 1, request));
+    }
+
+    @Test
+    void requestOfExactlyTheBoundAssembles() {
+        RequestAssembler assembler = new RequestAssembler(3 * PIECE + 3 * 8, 5000);
+        byte[] request = data(3 * PIECE);
+
+        assertNull(send(assembler, CLIENT, 1, 0, request));
+        assertNull(send(assembler, CLIENT, 1, 1, request));
+        assertArrayEquals(request, send(assembler, CLIENT, 1, 2, request));
+    }
+
+    @Test
+    void ignoresPiecesAnnouncingMorePiecesThanTheBoundAllows() {
+        RequestAssembler assembler = new RequestAssembler(10_000, 5000);
+        byte[] request = data(10);
+
+        for (int seq = 0; seq < 4; seq++) {
+            assertNull(send(assembler, CLIENT, 1, seq, 4, request, 0, request.length));
+        }
+        assertNull(send(assembler, CLIENT, 1, 0, Integer.MAX_VALUE, request, 0, request.length));
+    }
+
+    @Test
+    void ignoresPiecesLargerThanThePieceSize() {
+        RequestAssembler assembler = new RequestAssembler(10 * PIECE, 5000);
+        byte[] oversized = data(PIECE + 1);
+        byte[] small = data(5);
+
+        assertNull(send(assembler, CLIENT, 1, 0, 2, oversized, 0, oversized.length));
+        assertNull(send(assembler, CLIENT, 1, 1, 2, small, 0, small.length));
+        assertNull(send(assembler, CLIENT, 1, 0, 2, oversized, 0, oversized.length));
+    }
+
+    @Test
+    void dropsRequestsLargerThanTheBound() {
+        RequestAssembler assembler = new RequestAssembler(10_000, 5000);
+        byte[] request = data(3 * PIECE);
+
+        assertNull(send(assembler, CLIENT, 1, 0, request));
+        assertNull(send(assembler, CLIENT, 1, 1, request));
+        assertNull(send(assembler, CLIENT, 1, 2, request));
+
+        byte[] next = data(PIECE + 1);
+        assertNull(send(assembler, CLIENT, 2, 0, next));
+        assertArrayEquals(next, send(assembler, CLIENT, 2, 1, next));
+    }
+
+    @Test
+    void tooManyUnfinishedRequestsDiscardOnlyThatClient() {
+        RequestAssembler assembler = new RequestAssembler(1 << 20, 5000);
+        byte[] request = data(PIECE + 1);
+        assertNull(send(assembler, OTHER_CLIENT, 1, 0, request));
+        for (int id = 1; id <= RequestAssembler.MAX_PARTIALS_PER_CLIENT; id++) {
+            assertNull(send(assembler, CLIENT, id, 0, request));
+        }
+
+        assertNull(send(assembler, CLIENT, RequestAssembler.MAX_PARTIALS_PER_CLIENT + 1, 0, request));
+
+        assertNull(send(assembler, CLIENT, 1, 1, request));
+        assertArrayEquals(request, send(assembler, OTHER_CLIENT, 1, 1, request));
+    }
+
+    @Test
+    void clientsAreBoundedSeparately() {
+        RequestAssembler assembler = new RequestAssembler(2 * PIECE + 2 * 8, 5000);
+        byte[] request = data(2 * PIECE);
+
+        assertNull(send(assembler, CLIENT, 1, 0, request));
+        assertNull(send(assembler, OTHER_CLIENT, 1, 0, request));
+
+        assertArrayEquals(request, send(assembler, CLIENT, 1, 1, request));
+        assertArrayEquals(request, send(assembler, OTHER_CLIENT, 1, 1, request));
+    }
+
+    @Test
+    void pieceWithADifferentTotalStartsTheRequestOver() {
+        RequestAssembler assembler = new RequestAssembler(1 << 20, 5000);
+        byte[] first = data(3 * PIECE);
+        byte[] second = data(PIECE + 9);
+
+        assertNull(send(assembler, CLIENT, 1, 0, first));
+        assertNull(send(assembler, CLIENT, 1, 1, first));
+        assertNull(send(assembler, CLIENT, 1, 0, second));
+        assertArrayEquals(second, send(assembler, CLIENT, 1, 1, second));
+    }
+
+    @Test
+    void expiredPiecesAreDroppedAndTheirBytesReleased() throws InterruptedException {
+        RequestAssembler assembler = new RequestAssembler(PIECE + 100, 50);
+        byte[] stale = data(PIECE + 1);
+        byte[] fresh = data(PIECE + 2);
+
+        assertNull(send(assembler, CLIENT, 1, 0, stale));
+        Thread.sleep(120);
+
+        assertNull(send(assembler, CLIENT, 1, 1, stale));
+        assertNull(send(assembler, CLIENT, 2, 0, fresh));
+        byte[] assembled = send(assembler, CLIENT, 2, 1, fresh);
+        assertNotNull(assembled);
+        assertArrayEquals(fresh, assembled);
+    }
+
+    @Test
+    void lastPieceCompletesAfterTheOthersWithinTheTimeout() throws InterruptedException {
+        RequestAssembler assembler = new RequestAssembler(1 << 20, 2000);
+        byte[] request = data(2 * PIECE + 1);
+
+        assertNull(send(assembler, CLIENT, 7, 0, request));
+        assertNull(send(assembler, CLIENT, 7, 1, request));
+        Thread.sleep(50);
+
+        assertArrayEquals(request, send(assembler, CLIENT, 7, 2, request));
+    }
+}